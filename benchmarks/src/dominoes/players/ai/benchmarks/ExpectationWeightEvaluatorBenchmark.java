@@ -0,0 +1,66 @@
+package dominoes.players.ai.benchmarks;
+
+import dominoes.players.ai.algorithm.components.ExpectationWeightEvaluator;
+import dominoes.players.ai.algorithm.components.StateEnumerator;
+import dominoes.players.ai.algorithm.components.StateEnumeratorImpl;
+import dominoes.players.ai.algorithm.helper.BoneState;
+import dominoes.players.ai.algorithm.helper.Choice;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures ExpectationWeightEvaluator.addedValueFromChoice, one valid choice from one position per
+ * operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpectationWeightEvaluatorBenchmark {
+    @Param({"false", "true"})
+    public boolean bitboard;
+
+    private final ExpectationWeightEvaluator handEvaluator = new ExpectationWeightEvaluator();
+    private final List<BoneState> boneStates = new ArrayList<BoneState>();
+    private final List<Choice> choices = new ArrayList<Choice>();
+    private final List<Boolean> isMyTurns = new ArrayList<Boolean>();
+    private int next;
+
+    @Setup
+    public void setUp() {
+        StateEnumerator stateEnumerator = new StateEnumeratorImpl();
+
+        for (Positions.Position position : new Positions(Positions.DEFAULT_GAMES).getPositions()) {
+            BoneState boneState = position.createBoneState(bitboard);
+            List<Choice> validChoices = position.isMyTurn() ? stateEnumerator.getMyValidChoices(boneState)
+                    : stateEnumerator.getOpponentValidChoices(boneState);
+
+            for (Choice choice : validChoices) {
+                boneStates.add(boneState);
+                choices.add(choice);
+                isMyTurns.add(position.isMyTurn());
+            }
+        }
+    }
+
+    @Benchmark
+    public double addedValueFromChoice() {
+        int i = next++ % boneStates.size();
+        return handEvaluator.addedValueFromChoice(boneStates.get(i), isMyTurns.get(i), false, choices.get(i));
+    }
+}
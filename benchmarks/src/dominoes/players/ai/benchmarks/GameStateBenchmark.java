@@ -0,0 +1,71 @@
+package dominoes.players.ai.benchmarks;
+
+import dominoes.players.ai.algorithm.GameState;
+import dominoes.players.ai.algorithm.GameStateImpl;
+import dominoes.players.ai.algorithm.components.ExpectationWeightEvaluator;
+import dominoes.players.ai.algorithm.components.HandEvaluator;
+import dominoes.players.ai.algorithm.components.StateEnumerator;
+import dominoes.players.ai.algorithm.components.StateEnumeratorImpl;
+import dominoes.players.ai.algorithm.components.StateEnumeratorPipIndexed;
+import dominoes.players.ai.algorithm.helper.BoneState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures expanding a GameState's children (ie. enumerating the valid choices, creating each child's
+ * BoneState and valuing it), one position per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameStateBenchmark {
+    @Param({"false", "true"})
+    public boolean bitboard;
+
+    @Param({"StateEnumeratorImpl", "StateEnumeratorPipIndexed"})
+    public String stateEnumeratorName;
+
+    private final HandEvaluator handEvaluator = new ExpectationWeightEvaluator();
+    private StateEnumerator stateEnumerator;
+    private final List<BoneState> boneStates = new ArrayList<BoneState>();
+    private final List<Boolean> isMyTurns = new ArrayList<Boolean>();
+    private int next;
+
+    @Setup
+    public void setUp() {
+        if (stateEnumeratorName.equals("StateEnumeratorPipIndexed"))
+            stateEnumerator = new StateEnumeratorPipIndexed();
+        else
+            stateEnumerator = new StateEnumeratorImpl();
+
+        for (Positions.Position position : new Positions(Positions.DEFAULT_GAMES).getPositions()) {
+            boneStates.add(position.createBoneState(bitboard));
+            isMyTurns.add(position.isMyTurn());
+        }
+    }
+
+    @Benchmark
+    public List<GameState> expandChildren() {
+        int i = next++ % boneStates.size();
+
+        // A root with a ply of 1 has children, which are leaves
+        GameState state = new GameStateImpl(stateEnumerator, handEvaluator, 1, boneStates.get(i), isMyTurns.get(i));
+        return state.getChildStates();
+    }
+}
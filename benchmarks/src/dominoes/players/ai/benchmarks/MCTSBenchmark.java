@@ -0,0 +1,90 @@
+package dominoes.players.ai.benchmarks;
+
+import dominoes.players.ai.algorithm.ParallelMCTSController;
+import dominoes.players.ai.algorithm.helper.Choice;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how ParallelMCTSController's playouts per second scale with the number of worker threads.  Each
+ * operation is a getBestChoice with the same total playout budget (shared out between the threads) at one of
+ * my positions, and the playouts actually done are reported as the "playouts" counter, in playouts/s.
+ * Positions with only one choice aren't searched, so they count as operations but not playouts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class MCTSBenchmark {
+    private static final int PLAYOUT_BUDGET = 4000;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private List<Positions.Position> positions;
+    private ExecutorService executor;
+    private ParallelMCTSController ai;
+    private int next;
+
+    /**
+     * The playouts done in each iteration, which JMH reports as a rate alongside the operations.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Playouts {
+        public long playouts;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            playouts = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        positions = new Positions(Positions.DEFAULT_GAMES).getMyTurnPositions();
+
+        // One controller, with its own pool of worker threads (rather than the shared pool, which has a thread
+        // per processor), for the whole trial.
+        executor = Executors.newFixedThreadPool(threads);
+        ai = new ParallelMCTSController(threads, new Random(0), executor);
+        ai.setPlayoutBudget(PLAYOUT_BUDGET);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpPosition() {
+        positions.get(next++ % positions.size()).replay(ai);
+    }
+
+    @Benchmark
+    public Choice getBestChoice(Playouts counters) {
+        Choice choice = ai.getBestChoice();
+        counters.playouts += ai.getPlayoutsInLastSearch();
+        return choice;
+    }
+}
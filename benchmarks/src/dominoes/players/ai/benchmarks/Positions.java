@@ -0,0 +1,182 @@
+package dominoes.players.ai.benchmarks;
+
+import dominoes.players.ai.algorithm.AIController;
+import dominoes.players.ai.algorithm.GameOverException;
+import dominoes.players.ai.algorithm.ShortSightedAIController;
+import dominoes.players.ai.algorithm.helper.BoneState;
+import dominoes.players.ai.algorithm.helper.BoneStateBitboard;
+import dominoes.players.ai.algorithm.helper.BoneStateImpl;
+import dominoes.players.ai.algorithm.helper.Bones;
+import dominoes.players.ai.algorithm.helper.Choice;
+import dominoes.players.ai.algorithm.helper.ImmutableBone;
+import dominoes.players.ai.algorithm.helper.UnknownBoneManager;
+import dominoes.players.ai.algorithm.helper.UnknownBoneManagerArray;
+import dominoes.players.ai.algorithm.helper.UnknownBoneManagerImpl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A fixed set of positions for the benchmarks, taken from games between two ShortSightedAIs dealt from
+ * seeded shuffles, so every run (and every build being compared) sees the same positions.
+ *
+ * Each position is held as the deal and the choices made since, as the first player saw them, so it can be
+ * rebuilt as a BoneState of either kind or replayed into any AIController.
+ */
+public class Positions {
+    public static final int DEFAULT_GAMES = 16;
+
+    private final List<Position> positions = new ArrayList<Position>();
+
+    /**
+     * Creates the positions from the given number of games (seeded 0, 1, 2...), keeping every position
+     * before the end of each game.
+     *
+     * @param games the number of games to play.
+     */
+    public Positions(int games) {
+        for (int seed = 0; seed < games; ++seed)
+            playGame(seed);
+    }
+
+    private void playGame(int seed) {
+        List<ImmutableBone> allBones = new ArrayList<ImmutableBone>(Bones.getAllBones());
+        Collections.shuffle(allBones, new Random(seed));
+
+        List<ImmutableBone> myBones = allBones.subList(0, 7);
+        LinkedList<ImmutableBone> boneyard = new LinkedList<ImmutableBone>(allBones.subList(14, 28));
+        boolean isMyTurnFirst = seed % 2 == 0;
+
+        AIController me = new ShortSightedAIController();
+        AIController opponent = new ShortSightedAIController();
+        me.setInitialState(myBones, isMyTurnFirst);
+        opponent.setInitialState(allBones.subList(7, 14), !isMyTurnFirst);
+
+        List<Choice> choices = new ArrayList<Choice>();
+        boolean isMyTurn = isMyTurnFirst;
+
+        try {
+            while (true) {
+                positions.add(new Position(myBones, isMyTurnFirst, choices, isMyTurn));
+
+                AIController player = isMyTurn ? me : opponent;
+                AIController otherPlayer = isMyTurn ? opponent : me;
+                Choice choice = player.getBestChoice();
+
+                // Only the player picking up sees which bone they picked up
+                Choice seenByPlayer = choice;
+                if (choice.getAction() == Choice.Action.PICKED_UP)
+                    seenByPlayer = Choice.valueOf(Choice.Action.PICKED_UP, boneyard.removeFirst());
+
+                player.choose(seenByPlayer);
+                otherPlayer.choose(choice);
+                choices.add(isMyTurn ? seenByPlayer : choice);
+
+                if (choice.getAction() != Choice.Action.PICKED_UP)
+                    isMyTurn = !isMyTurn;
+            }
+        } catch (GameOverException e) {
+            // The last position added was the end of the game
+            positions.remove(positions.size() - 1);
+        }
+    }
+
+    public List<Position> getPositions() {
+        return Collections.unmodifiableList(positions);
+    }
+
+    /**
+     * Gets the positions where it's my (ie. the first player's) turn.
+     *
+     * @return the positions where it's my turn.
+     */
+    public List<Position> getMyTurnPositions() {
+        List<Position> myTurnPositions = new ArrayList<Position>();
+        for (Position position : positions)
+            if (position.isMyTurn())
+                myTurnPositions.add(position);
+        return myTurnPositions;
+    }
+
+    /**
+     * A position in a game: the deal, and the choices made since.
+     */
+    public static class Position {
+        private final List<ImmutableBone> myBones;
+        private final boolean isMyTurnFirst;
+        private final List<Choice> choices;
+        private final boolean isMyTurn;
+
+        private Position(List<ImmutableBone> myBones, boolean isMyTurnFirst, List<Choice> choices, boolean isMyTurn) {
+            this.myBones = new ArrayList<ImmutableBone>(myBones);
+            this.isMyTurnFirst = isMyTurnFirst;
+            this.choices = new ArrayList<Choice>(choices);
+            this.isMyTurn = isMyTurn;
+        }
+
+        public boolean isMyTurn() {
+            return isMyTurn;
+        }
+
+        /**
+         * Creates the BoneState of this position.
+         *
+         * @param bitboard true to create a BoneStateBitboard, false for a BoneStateImpl.
+         * @return the BoneState of this position.
+         */
+        public BoneState createBoneState(boolean bitboard) {
+            BoneState boneState = bitboard ? new BoneStateBitboard(myBones) : new BoneStateImpl(myBones);
+            boolean isMyTurnNow = isMyTurnFirst;
+
+            for (Choice choice : choices) {
+                boneState = boneState.createNext(choice, isMyTurnNow);
+                if (choice.getAction() != Choice.Action.PICKED_UP)
+                    isMyTurnNow = !isMyTurnNow;
+            }
+
+            return boneState;
+        }
+
+        /**
+         * Creates the UnknownBoneManager of this position.
+         *
+         * @param array true to create an UnknownBoneManagerArray, false for an UnknownBoneManagerImpl.
+         * @return the UnknownBoneManager of this position.
+         */
+        public UnknownBoneManager createUnknownBoneManager(boolean array) {
+            List<ImmutableBone> unknownBones = new ArrayList<ImmutableBone>(Bones.getAllBones());
+            unknownBones.removeAll(myBones);
+
+            UnknownBoneManager unknownBoneManager = array ? new UnknownBoneManagerArray(unknownBones, myBones.size())
+                    : new UnknownBoneManagerImpl(unknownBones, myBones.size());
+
+            // The layout's ends are needed to update the unknown bones, so replay a BoneState alongside
+            BoneState boneState = new BoneStateImpl(myBones);
+            boolean isMyTurnNow = isMyTurnFirst;
+
+            for (Choice choice : choices) {
+                unknownBoneManager = unknownBoneManager.createNext(choice, isMyTurnNow,
+                        boneState.getLayoutLeft(), boneState.getLayoutRight());
+                boneState = boneState.createNext(choice, isMyTurnNow);
+                if (choice.getAction() != Choice.Action.PICKED_UP)
+                    isMyTurnNow = !isMyTurnNow;
+            }
+
+            return unknownBoneManager;
+        }
+
+        /**
+         * Deals this position's bones to the given AI and replays the choices made since.
+         *
+         * @param ai the AI to set up.
+         */
+        public void replay(AIController ai) {
+            ai.setInitialState(myBones, isMyTurnFirst);
+            for (Choice choice : choices)
+                ai.choose(choice);
+        }
+    }
+}
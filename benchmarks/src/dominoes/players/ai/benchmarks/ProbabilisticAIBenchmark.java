@@ -0,0 +1,55 @@
+package dominoes.players.ai.benchmarks;
+
+import dominoes.players.ai.algorithm.AIBuilder;
+import dominoes.players.ai.algorithm.AIController;
+import dominoes.players.ai.algorithm.helper.Choice;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a full getBestChoice from a fresh AI (built by AIBuilder) at one of my positions per operation.
+ * The AI is set up (and the position replayed into it) before each operation, outside the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ProbabilisticAIBenchmark {
+    @Param({"ProbabilisticAI", "BitboardProbabilisticAI", "PipIndexedProbabilisticAI"})
+    public String aiName;
+
+    private List<Positions.Position> positions;
+    private AIController ai;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        positions = new Positions(Positions.DEFAULT_GAMES).getMyTurnPositions();
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpPosition() {
+        ai = AIBuilder.createAI(aiName);
+        positions.get(next++ % positions.size()).replay(ai);
+    }
+
+    @Benchmark
+    public Choice getBestChoice() {
+        return ai.getBestChoice();
+    }
+}
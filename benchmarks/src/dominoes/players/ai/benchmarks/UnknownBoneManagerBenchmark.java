@@ -0,0 +1,80 @@
+package dominoes.players.ai.benchmarks;
+
+import dominoes.players.ai.algorithm.components.StateEnumerator;
+import dominoes.players.ai.algorithm.components.StateEnumeratorImpl;
+import dominoes.players.ai.algorithm.helper.BoneState;
+import dominoes.players.ai.algorithm.helper.Choice;
+import dominoes.players.ai.algorithm.helper.OpponentProbabilityCache;
+import dominoes.players.ai.algorithm.helper.UnknownBoneManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures UnknownBoneManager.createNext (which recalculates the opponent's probabilities), one valid choice
+ * from one position per operation.  Without the probability cache, each operation clears the cache first,
+ * so the probabilities are calculated in full.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnknownBoneManagerBenchmark {
+    @Param({"false", "true"})
+    public boolean array;
+
+    @Param({"true", "false"})
+    public boolean probabilityCache;
+
+    private final List<UnknownBoneManager> unknownBoneManagers = new ArrayList<UnknownBoneManager>();
+    private final List<Choice> choices = new ArrayList<Choice>();
+    private final List<Boolean> isMyTurns = new ArrayList<Boolean>();
+    private final List<Integer> layoutLefts = new ArrayList<Integer>();
+    private final List<Integer> layoutRights = new ArrayList<Integer>();
+    private int next;
+
+    @Setup
+    public void setUp() {
+        StateEnumerator stateEnumerator = new StateEnumeratorImpl();
+
+        for (Positions.Position position : new Positions(Positions.DEFAULT_GAMES).getPositions()) {
+            BoneState boneState = position.createBoneState(false);
+            UnknownBoneManager unknownBoneManager = position.createUnknownBoneManager(array);
+            List<Choice> validChoices = position.isMyTurn() ? stateEnumerator.getMyValidChoices(boneState)
+                    : stateEnumerator.getOpponentValidChoices(boneState);
+
+            for (Choice choice : validChoices) {
+                unknownBoneManagers.add(unknownBoneManager);
+                choices.add(choice);
+                isMyTurns.add(position.isMyTurn());
+                layoutLefts.add(boneState.getLayoutLeft());
+                layoutRights.add(boneState.getLayoutRight());
+            }
+        }
+    }
+
+    @Benchmark
+    public UnknownBoneManager createNext() {
+        int i = next++ % unknownBoneManagers.size();
+
+        if (!probabilityCache)
+            OpponentProbabilityCache.clear();
+
+        return unknownBoneManagers.get(i).createNext(choices.get(i), isMyTurns.get(i),
+                layoutLefts.get(i), layoutRights.get(i));
+    }
+}
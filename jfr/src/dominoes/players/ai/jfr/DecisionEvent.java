@@ -0,0 +1,41 @@
+package dominoes.players.ai.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A ProbabilisticAI choosing its best choice.  The event's duration is the time the decision took.
+ */
+@Name("dominoes.ai.Decision")
+@Label("AI Decision")
+@Category({"Dominoes", "AI"})
+@Description("A ProbabilisticAI choosing its best choice")
+@StackTrace(false)
+class DecisionEvent extends jdk.jfr.Event {
+    @Label("AI")
+    String ai;
+
+    @Label("Choice")
+    @Description("The choice made, or null if the game was over")
+    String choice;
+
+    @Label("Nodes Expanded")
+    long nodesExpanded;
+
+    @Label("Iterations")
+    int iterations;
+
+    @Label("Max Depth")
+    @Description("The deepest the tree was expanded to, in moves after the current state")
+    int maxDepth;
+
+    @Label("Peak Live Nodes")
+    int peakLiveNodes;
+
+    @Label("Stable")
+    @Description("Whether the search stopped because the best choice was stable")
+    boolean stable;
+}
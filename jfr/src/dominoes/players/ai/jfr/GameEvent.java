@@ -0,0 +1,30 @@
+package dominoes.players.ai.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A game played at an AutomatedTable, from the deal until someone can't play.
+ */
+@Name("dominoes.ai.Game")
+@Label("Automated Game")
+@Category({"Dominoes", "AI"})
+@Description("A game between two AIs at an AutomatedTable")
+@StackTrace(false)
+class GameEvent extends jdk.jfr.Event {
+    @Label("Player 1")
+    String player1;
+
+    @Label("Player 2")
+    String player2;
+
+    @Label("Winner")
+    @Description("Player 1, Player 2 or null for a draw")
+    String winner;
+
+    @Label("Points")
+    int points;
+}
@@ -0,0 +1,33 @@
+package dominoes.players.ai.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * An iteration of a ProbabilisticAI's search: selecting the best routes and increasing their ply.
+ */
+@Name("dominoes.ai.Iteration")
+@Label("AI Search Iteration")
+@Category({"Dominoes", "AI"})
+@Description("A ProbabilisticAI selecting its best routes and increasing their ply")
+@StackTrace(false)
+class IterationEvent extends jdk.jfr.Event {
+    @Label("AI")
+    String ai;
+
+    @Label("Iteration")
+    int iteration;
+
+    @Label("Routes")
+    int routes;
+
+    @Label("Ply Increase")
+    @Description("The ply increase given to the best route")
+    int plyIncrease;
+
+    @Label("Live Nodes")
+    int liveNodes;
+}
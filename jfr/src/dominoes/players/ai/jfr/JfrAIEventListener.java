@@ -0,0 +1,117 @@
+package dominoes.players.ai.jfr;
+
+import dominoes.players.ai.algorithm.AIController;
+import dominoes.players.ai.algorithm.AIEventListener;
+import dominoes.players.ai.algorithm.AIEvents;
+import dominoes.players.ai.algorithm.SearchStatistics;
+import dominoes.players.ai.algorithm.helper.Choice;
+
+/**
+ * Records the AIs' events with Java Flight Recorder, under Dominoes/AI.  Install it with install(), or with
+ * -Ddominoes.ai.eventListener=dominoes.players.ai.jfr.JfrAIEventListener, and start a recording (eg. with
+ * -XX:StartFlightRecording).  When no recording is running, each event costs little more than creating it.
+ */
+public class JfrAIEventListener implements AIEventListener {
+    // A thread's events in progress (the ponderer's iterations are on their own thread)
+    private final ThreadLocal<DecisionEvent> decision = new ThreadLocal<>();
+    private final ThreadLocal<IterationEvent> iteration = new ThreadLocal<>();
+    private final ThreadLocal<PlayEvent> play = new ThreadLocal<>();
+    private final ThreadLocal<GameEvent> game = new ThreadLocal<>();
+
+    /**
+     * Installs a JfrAIEventListener as the listener for the AIs' events.
+     */
+    public static void install() {
+        AIEvents.setListener(new JfrAIEventListener());
+    }
+
+    @Override
+    public void decisionStarted(AIController ai) {
+        DecisionEvent event = new DecisionEvent();
+        event.begin();
+        decision.set(event);
+    }
+
+    @Override
+    public void decisionFinished(AIController ai, Choice choice, SearchStatistics statistics) {
+        DecisionEvent event = decision.get();
+        decision.remove();
+        if (event == null || !event.shouldCommit())
+            return;
+
+        event.ai = describe(ai);
+        event.choice = String.valueOf(choice);
+        event.nodesExpanded = statistics.getLastNodesExpanded();
+        event.iterations = statistics.getLastIterations();
+        event.maxDepth = statistics.getLastMaxDepth();
+        event.peakLiveNodes = statistics.getLastPeakLiveNodes();
+        event.stable = statistics.isLastChoiceStable();
+        event.commit();
+    }
+
+    @Override
+    public void iterationStarted(AIController ai) {
+        IterationEvent event = new IterationEvent();
+        event.begin();
+        iteration.set(event);
+    }
+
+    @Override
+    public void iterationFinished(AIController ai, int iterations, int routes, int plyIncrease, int liveNodes) {
+        IterationEvent event = iteration.get();
+        iteration.remove();
+        if (event == null || !event.shouldCommit())
+            return;
+
+        event.ai = describe(ai);
+        event.iteration = iterations;
+        event.routes = routes;
+        event.plyIncrease = plyIncrease;
+        event.liveNodes = liveNodes;
+        event.commit();
+    }
+
+    @Override
+    public void playStarted(String playerName) {
+        PlayEvent event = new PlayEvent();
+        event.begin();
+        play.set(event);
+    }
+
+    @Override
+    public void playFinished(String playerName, Choice choice) {
+        PlayEvent event = play.get();
+        play.remove();
+        if (event == null || !event.shouldCommit())
+            return;
+
+        event.player = playerName;
+        event.choice = String.valueOf(choice);
+        event.commit();
+    }
+
+    @Override
+    public void gameStarted(AIController player1, AIController player2) {
+        GameEvent event = new GameEvent();
+        event.begin();
+        game.set(event);
+    }
+
+    @Override
+    public void gameFinished(AIController player1, AIController player2, AIController winner, int points) {
+        GameEvent event = game.get();
+        game.remove();
+        if (event == null || !event.shouldCommit())
+            return;
+
+        event.player1 = describe(player1);
+        event.player2 = describe(player2);
+        event.winner = (winner == null) ? null : (winner == player1 ? "Player 1" : "Player 2");
+        event.points = points;
+        event.commit();
+    }
+
+    private static String describe(AIController ai) {
+        return ai.getClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(ai));
+    }
+}
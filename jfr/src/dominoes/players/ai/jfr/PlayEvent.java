@@ -0,0 +1,23 @@
+package dominoes.players.ai.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * An AIPlayer making a play at the table, including updating its AI with the opponent's choices.
+ */
+@Name("dominoes.ai.Play")
+@Label("AI Player Play")
+@Category({"Dominoes", "AI"})
+@Description("An AIPlayer making a play at the table")
+@StackTrace(false)
+class PlayEvent extends jdk.jfr.Event {
+    @Label("Player")
+    String player;
+
+    @Label("Choice")
+    String choice;
+}
@@ -4,6 +4,8 @@ package dominoes.players;
 import dominoes.*;
 import dominoes.players.ai.algorithm.AIBuilder;
 import dominoes.players.ai.algorithm.AIController;
+import dominoes.players.ai.algorithm.AIEventListener;
+import dominoes.players.ai.algorithm.AIEvents;
 import dominoes.players.ai.algorithm.GameOverException;
 import dominoes.players.ai.algorithm.helper.Bones;
 import dominoes.players.ai.algorithm.helper.Choice;
@@ -31,6 +33,8 @@ public class AIPlayer implements dominoes.players.DominoPlayer {
     private Table currentTable;
     private BoneYard boneYard;
     private boolean pickingUp;
+    private long timeBudgetMillis = 0;
+    private Choice lastChoice;
 
     public AIPlayer() {
         newRound();
@@ -38,7 +42,20 @@ public class AIPlayer implements dominoes.players.DominoPlayer {
 
     @Override
     public Play makePlay(Table table) throws CantPlayException {
-        
+        AIEventListener listener = AIEvents.getListener();
+        if (listener == null)
+            return makeBestPlay(table);
+
+        listener.playStarted(name);
+        lastChoice = null;
+        try {
+            return makeBestPlay(table);
+        } finally {
+            listener.playFinished(name, lastChoice);
+        }
+    }
+
+    private Play makeBestPlay(Table table) throws CantPlayException {
         Bone[] table_layout = table.layout();
         currentTable = table;
 
@@ -77,6 +94,7 @@ public class AIPlayer implements dominoes.players.DominoPlayer {
         Choice myChoice;
         try {
             myChoice = ai.getBestChoice();
+            lastChoice = myChoice;
         } catch (GameOverException e) {
             throw new CantPlayException();
         }
@@ -136,20 +154,40 @@ public class AIPlayer implements dominoes.players.DominoPlayer {
         int numberOfPickups = ai.getGameState().getBoneState().getSizeOfBoneyard() - boneYard.size();
 
         for (int i = 0; i < numberOfPickups; ++i)
-            ai.choose(new Choice(Choice.Action.PICKED_UP, null));
+            ai.choose(Choice.valueOf(Choice.Action.PICKED_UP, null));
 
         if (!prevLayout[0].equals(layout[0])) {
             // The opponent put a bone on the left
-            ai.choose(new Choice(Choice.Action.PLACED_LEFT, new ImmutableBone(layout[0])));
+            ai.choose(Choice.valueOf(Choice.Action.PLACED_LEFT, Bones.getBone(layout[0])));
         } else if (!prevLayout[prevRightPos].equals(layout[rightPos])) {
             // The opponent put a bone on the right
-            ai.choose(new Choice(Choice.Action.PLACED_RIGHT, new ImmutableBone(layout[rightPos])));
+            ai.choose(Choice.valueOf(Choice.Action.PLACED_RIGHT, Bones.getBone(layout[rightPos])));
         } else {
             // The opponent must have passed
-            ai.choose(new Choice(Choice.Action.PASS, null));
+            ai.choose(Choice.valueOf(Choice.Action.PASS, null));
         }
     }
 
+    /**
+     * Sets the time the AI may take to make each play (eg. to keep the GUI responsive, or to meet a server's
+     * time limit).  If the time runs out, the AI plays the best choice it has found so far.
+     *
+     * @param timeBudgetMillis the time budget per play in milliseconds, or 0 for no limit.
+     */
+    public void setTimeBudget(long timeBudgetMillis) {
+        ai.setTimeBudget(timeBudgetMillis);
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    /**
+     * Gets the time the AI may take to make each play.
+     *
+     * @return the time budget per play in milliseconds, or 0 for no limit.
+     */
+    public long getTimeBudget() {
+        return timeBudgetMillis;
+    }
+
     @Override
     public void takeBack(Bone bone) {
         throw new RuntimeException("Wasn't expecting to takeBack a bone!");
@@ -157,7 +195,7 @@ public class AIPlayer implements dominoes.players.DominoPlayer {
 
     @Override
     public void draw(BoneYard boneYard) {
-        ImmutableBone pickedUpBone = new ImmutableBone(boneYard.draw());
+        ImmutableBone pickedUpBone = Bones.getBone(boneYard.draw());
         this.boneYard = boneYard;
 
         if (firstMove)
@@ -165,7 +203,7 @@ public class AIPlayer implements dominoes.players.DominoPlayer {
             initialHand.add(pickedUpBone);
         else
             // Pick up
-            ai.choose(new Choice(Choice.Action.PICKED_UP, pickedUpBone));
+            ai.choose(Choice.valueOf(Choice.Action.PICKED_UP, pickedUpBone));
     }
 
     private List<ImmutableBone> getMyInternalBones() {
@@ -208,6 +246,10 @@ public class AIPlayer implements dominoes.players.DominoPlayer {
     @Override
     public void setName(String name) {
         this.name = name;
+
+        // So the AI's searches can be watched over JMX, under the player's name
+        if (name != null)
+            ai.getSearchStatistics().registerMBean(name);
     }
 
     @Override
@@ -2,6 +2,8 @@ package dominoes.players.ai;
 
 import dominoes.players.ai.algorithm.AIBuilder;
 import dominoes.players.ai.algorithm.AIController;
+import dominoes.players.ai.algorithm.AIEventListener;
+import dominoes.players.ai.algorithm.AIEvents;
 import dominoes.players.ai.algorithm.GameOverException;
 import dominoes.players.ai.algorithm.helper.Bones;
 import dominoes.players.ai.algorithm.helper.Choice;
@@ -9,9 +11,18 @@ import dominoes.players.ai.algorithm.helper.ConsoleHelper;
 import dominoes.players.ai.algorithm.helper.ImmutableBone;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * User: Sam Wright
@@ -21,14 +32,24 @@ import java.util.List;
 public class AutomatedTable {
     private List<ImmutableBone> player1bones, player2bones, boneyardBones;
     private boolean verbose = false;
+    private Random random = new Random();
 
     public void setVerbose(boolean verbose) {
         this.verbose = verbose;
     }
 
+    /**
+     * Seeds the shuffles the bones are dealt from, so the same games are dealt again.
+     *
+     * @param seed the seed.
+     */
+    public void setSeed(long seed) {
+        random = new Random(seed);
+    }
+
     private void setUpBones() {
         List<ImmutableBone> all_bones = new LinkedList<ImmutableBone>(Bones.getAllBones());
-        Collections.shuffle(all_bones);
+        Collections.shuffle(all_bones, random);
 
         player1bones = all_bones.subList(0, 7);
         player2bones = all_bones.subList(7, 14);
@@ -56,12 +77,54 @@ public class AutomatedTable {
             if (boneyardBones.isEmpty())
                 throw new RuntimeException("Tried to take from empty boneyard! Choice = " + choice);
 
-            choice = new Choice(choice.getAction(), boneyardBones.remove(0));
+            choice = Choice.valueOf(choice.getAction(), boneyardBones.remove(0));
         }
 
         return choice;
     }
 
+    /**
+     * Plays the bones that have been set up until someone can't play.
+     *
+     * @param player1 AI player 1, who gets player1bones.
+     * @param player2 AI player 2, who gets player2bones.
+     * @param player1first true iff player 1 goes first.
+     * @return the winner, or null for a draw.
+     */
+    private AIController playHand(AIController player1, AIController player2, boolean player1first) {
+        player2.setInitialState(player2bones, !player1first);
+        player1.setInitialState(player1bones, player1first);
+
+        AIEventListener listener = AIEvents.getListener();
+        if (listener != null)
+            listener.gameStarted(player1, player2);
+
+        try {
+            while (true) {
+                if (player1first)
+                    playOnceEach(player1, player2);
+                else
+                    playOnceEach(player2, player1);
+            }
+        } catch (GameOverException err) {
+            final AIController winner = getWinner(player1, player2);
+
+            if (listener != null)
+                listener.gameFinished(player1, player2, winner, getPoints(player1, player2, winner));
+
+            return winner;
+        }
+    }
+
+    private static int getPoints(AIController player1, AIController player2, AIController winner) {
+        if (winner == player1)
+            return player2.getHandWeight();
+        else if (winner == player2)
+            return player1.getHandWeight();
+        else
+            return 0;
+    }
+
     /**
      * Plays a game of dominoes between the two AIControllers - first to get pointsToWin wins
      * (and is returned).
@@ -72,6 +135,16 @@ public class AutomatedTable {
      * @return the winning player.
      */
     public AIController competeAIs(AIController player1, AIController player2, int pointsToWin) {
+        TournamentResult result = new TournamentResult();
+        playGame(player1, player2, pointsToWin, result);
+
+        if (result.getPlayer1Wins() > 0)
+            return player1;
+        else
+            return player2;
+    }
+
+    private void playGame(AIController player1, AIController player2, int pointsToWin, TournamentResult result) {
         int player1score = 0, player2score = 0, player1wins = 0, player2wins = 0, i = 0;
         boolean player1first = true;
 
@@ -79,36 +152,24 @@ public class AutomatedTable {
             i += 1;
 
             setUpBones();
-            player2.setInitialState(player2bones, !player1first);
-            player1.setInitialState(player1bones, player1first);
-
-            try {
-                while (true) {
-                    if (player1first)
-                        playOnceEach(player1, player2);
-                    else
-                        playOnceEach(player2, player1);
-                }
-            } catch (GameOverException err) {
-                final AIController winner = getWinner(player1, player2);
-
-                if (verbose)
-                    System.out.format("Game %d: Player 1 %s (%d vs %d)%n", i,
-                            (winner == player1 ? "won" : (winner == player2 ? "lost" : "draw")),
-                            player1.getHandWeight(), player2.getHandWeight());
-
-                if (winner == player1) {
-                    player1wins += 1;
-                    player1score += player2.getHandWeight();
-                } else if (winner == player2) {
-                    player2wins += 1;
-                    player2score += player1.getHandWeight();
-                } else {
-                    --i;    // If draw, replay.
-                }
-
-                player1first = !player1first;
+            final AIController winner = playHand(player1, player2, player1first);
+
+            if (verbose)
+                System.out.format("Game %d: Player 1 %s (%d vs %d)%n", i,
+                        (winner == player1 ? "won" : (winner == player2 ? "lost" : "draw")),
+                        player1.getHandWeight(), player2.getHandWeight());
+
+            if (winner == player1) {
+                player1wins += 1;
+                player1score += player2.getHandWeight();
+            } else if (winner == player2) {
+                player2wins += 1;
+                player2score += player1.getHandWeight();
+            } else {
+                --i;    // If draw, replay.
             }
+
+            player1first = !player1first;
         }
 
         if (verbose) {
@@ -116,10 +177,7 @@ public class AutomatedTable {
             System.out.format("Player 2 won %d and scored a total of %d%n", player2wins, player2score);
         }
 
-        if (player1score > player2score)
-            return player1;
-        else
-            return player2;
+        result.recordGame(player1score, player2score);
     }
 
     /**
@@ -158,6 +216,215 @@ public class AutomatedTable {
             return player2;
     }
 
+    /**
+     * Plays a tournament like competeAIsInTournament, but shares the games between a number of threads.  Each
+     * thread has its own table and its own players, created by AIBuilder, and each game is dealt from its own
+     * seeded shuffle, so the games played don't depend on which thread plays them.
+     *
+     * @param player1AI the AIBuilder name of player 1's AI.
+     * @param player2AI the AIBuilder name of player 2's AI.
+     * @param pointsToWin the number of points required to win each game.
+     * @param totalGames the total number of games to play.
+     * @param threads the number of games to play at once.
+     * @param seed the seed the games' shuffles are seeded from.
+     * @return the totals over every game.
+     */
+    public TournamentResult competeAIsInParallelTournament(String player1AI, String player2AI, int pointsToWin,
+                                                           int totalGames, int threads, long seed) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be at least 1");
+
+        long[] gameSeeds = createSeeds(seed, totalGames);
+
+        AtomicInteger nextGame = new AtomicInteger();
+        List<Worker> workers = new ArrayList<Worker>(threads);
+        for (int i = 0; i < threads; ++i)
+            workers.add(new Worker(player1AI, player2AI, pointsToWin, gameSeeds, nextGame));
+
+        TournamentResult result = new TournamentResult();
+        for (TournamentResult workerResult : invokeAll(workers))
+            result.merge(workerResult);
+
+        if (verbose) {
+            System.out.println("\n ========== Tournament over! ==========");
+            System.out.format("%s (seed %d)%n", result, seed);
+        }
+
+        return result;
+    }
+
+    /**
+     * Plays a duplicate tournament between the two AIs: every deal is played twice, with the AIs swapping seats
+     * (ie. hands and who goes first), and each deal is scored as player 1's net points over both hands.  Since
+     * the luck of the deal partly cancels out, fewer hands are needed to tell two similar AIs apart than with
+     * competeAIsInTournament (the result's unpaired standard error shows how many fewer).  Drawn hands score
+     * 0 rather than being replayed.
+     *
+     * The deals are shared between threads as in competeAIsInParallelTournament, and are seeded the same way.
+     *
+     * @param player1AI the AIBuilder name of player 1's AI.
+     * @param player2AI the AIBuilder name of player 2's AI.
+     * @param totalDeals the number of deals to play (each of which is played twice).
+     * @param threads the number of deals to play at once.
+     * @param seed the seed the deals' shuffles are seeded from.
+     * @return the paired scores over every deal.
+     */
+    public DuplicateResult competeAIsInDuplicateTournament(String player1AI, String player2AI, int totalDeals,
+                                                           int threads, long seed) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be at least 1");
+
+        long[] dealSeeds = createSeeds(seed, totalDeals);
+
+        AtomicInteger nextDeal = new AtomicInteger();
+        List<DuplicateWorker> workers = new ArrayList<DuplicateWorker>(threads);
+        for (int i = 0; i < threads; ++i)
+            workers.add(new DuplicateWorker(player1AI, player2AI, dealSeeds, nextDeal));
+
+        DuplicateResult result = new DuplicateResult();
+        result.setSeed(seed);
+        for (DuplicateResult workerResult : invokeAll(workers))
+            result.merge(workerResult);
+
+        if (verbose) {
+            System.out.println("\n ========== Duplicate tournament over! ==========");
+            System.out.println(result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Plays a deal twice, once as dealt and once with the players' seats swapped.
+     *
+     * @param player1 AI player 1.
+     * @param player2 AI player 2.
+     * @param seed the seed of the deal's shuffle.
+     * @param result the result to record the deal in.
+     */
+    private void playDuplicateDeal(AIController player1, AIController player2, long seed, DuplicateResult result) {
+        setSeed(seed);
+        setUpBones();
+        AIController winner = playHand(player1, player2, true);
+        int firstHandScore = getNetPoints(player1, player1, player2, winner);
+
+        setSeed(seed);
+        setUpBones();
+        winner = playHand(player2, player1, true);
+        int secondHandScore = getNetPoints(player1, player2, player1, winner);
+
+        result.recordDeal(firstHandScore, secondHandScore);
+    }
+
+    private static int getNetPoints(AIController player, AIController seat1, AIController seat2, AIController winner) {
+        int points = getPoints(seat1, seat2, winner);
+        return winner == player ? points : -points;
+    }
+
+    private static long[] createSeeds(long seed, int count) {
+        Random seeds = new Random(seed);
+        long[] result = new long[count];
+        for (int i = 0; i < count; ++i)
+            result[i] = seeds.nextLong();
+        return result;
+    }
+
+    /**
+     * Runs each worker on its own thread, returning their results once they've all finished.
+     *
+     * @param workers the workers to run.
+     * @param <T> the type of the workers' results.
+     * @return the results, in the same order as the workers.
+     */
+    private static <T> List<T> invokeAll(List<? extends Callable<T>> workers) {
+        ExecutorService executor = Executors.newFixedThreadPool(workers.size(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "AutomatedTable worker");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        try {
+            List<T> results = new ArrayList<T>(workers.size());
+            for (Future<T> future : executor.invokeAll(workers))
+                results.add(future.get());
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while playing the tournament", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Game failed in a worker thread", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Plays games from a parallel tournament, taking the next game to play until they've all been played.
+     */
+    private static class Worker implements Callable<TournamentResult> {
+        private final String player1AI, player2AI;
+        private final int pointsToWin;
+        private final long[] gameSeeds;
+        private final AtomicInteger nextGame;
+
+        private Worker(String player1AI, String player2AI, int pointsToWin, long[] gameSeeds, AtomicInteger nextGame) {
+            this.player1AI = player1AI;
+            this.player2AI = player2AI;
+            this.pointsToWin = pointsToWin;
+            this.gameSeeds = gameSeeds;
+            this.nextGame = nextGame;
+        }
+
+        @Override
+        public TournamentResult call() {
+            AutomatedTable table = new AutomatedTable();
+            AIController player1 = AIBuilder.createAI(player1AI);
+            AIController player2 = AIBuilder.createAI(player2AI);
+            TournamentResult result = new TournamentResult();
+
+            int game;
+            while ((game = nextGame.getAndIncrement()) < gameSeeds.length) {
+                table.setSeed(gameSeeds[game]);
+                table.playGame(player1, player2, pointsToWin, result);
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Plays deals from a duplicate tournament, taking the next deal to play until they've all been played.
+     */
+    private static class DuplicateWorker implements Callable<DuplicateResult> {
+        private final String player1AI, player2AI;
+        private final long[] dealSeeds;
+        private final AtomicInteger nextDeal;
+
+        private DuplicateWorker(String player1AI, String player2AI, long[] dealSeeds, AtomicInteger nextDeal) {
+            this.player1AI = player1AI;
+            this.player2AI = player2AI;
+            this.dealSeeds = dealSeeds;
+            this.nextDeal = nextDeal;
+        }
+
+        @Override
+        public DuplicateResult call() {
+            AutomatedTable table = new AutomatedTable();
+            AIController player1 = AIBuilder.createAI(player1AI);
+            AIController player2 = AIBuilder.createAI(player2AI);
+            DuplicateResult result = new DuplicateResult();
+
+            int deal;
+            while ((deal = nextDeal.getAndIncrement()) < dealSeeds.length)
+                table.playDuplicateDeal(player1, player2, dealSeeds[deal], result);
+
+            return result;
+        }
+    }
+
     private AIController getWinner(AIController player1, AIController player2) {
         final AIController winner;
         if (player1.getGameState().getBoneState().getMyBones().isEmpty()
@@ -179,20 +446,26 @@ public class AutomatedTable {
     }
 
     public static void main(String[] args) throws IOException {
-        if (args.length > 0)
-            System.out.println("Ignoring arguments...");
+        // The deals can be repeated by giving the seed they were dealt from
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : new Random().nextLong();
+        if (args.length > 1)
+            System.out.println("Ignoring arguments after the seed...");
+        System.out.format("Dealing from seed %d (give it as the first argument to deal the same games again)%n", seed);
 
         AutomatedTable table = new AutomatedTable();
         table.setVerbose(true);
+        table.setSeed(seed);
 
         System.out.println("Available AIs are:");
         for (int i = 1; i <= AIBuilder.getValidAINames().size(); ++i)
             System.out.format("\t[%d] %s%n", i, AIBuilder.getValidAINames().get(i - 1));
 
-        AIController player1AI = createAIFromIndex(ConsoleHelper.askUserForInteger("Choose AI for player 1: "));
-        AIController player2AI = createAIFromIndex(ConsoleHelper.askUserForInteger("Choose AI for player 2: "));
+        String player1AIName = AIBuilder.getValidAINames().get(ConsoleHelper.askUserForInteger("Choose AI for player 1: ") - 1);
+        String player2AIName = AIBuilder.getValidAINames().get(ConsoleHelper.askUserForInteger("Choose AI for player 2: ") - 1);
+        AIController player1AI = AIBuilder.createAI(player1AIName);
+        AIController player2AI = AIBuilder.createAI(player2AIName);
 
-        int gameType = ConsoleHelper.askUserForInteger("Play a tournament [1] or a single game [2]: ");
+        int gameType = ConsoleHelper.askUserForInteger("Play a tournament [1], a single game [2], a parallel tournament [3] or a duplicate tournament [4]: ");
 
         if (gameType == 1) {
             int gamesToPlay = ConsoleHelper.askUserForInteger("Enter number of games to play: ");
@@ -203,15 +476,22 @@ public class AutomatedTable {
             int pointsToWin = ConsoleHelper.askUserForInteger("Enter number of points required to win: ");
             table.competeAIs(player1AI, player2AI, pointsToWin);
 
+        } else if (gameType == 3) {
+            int gamesToPlay = ConsoleHelper.askUserForInteger("Enter number of games to play: ");
+            int pointsToWin = ConsoleHelper.askUserForInteger("Enter number of points required to win a game: ");
+            int threads = ConsoleHelper.askUserForInteger("Enter number of threads: ");
+            table.competeAIsInParallelTournament(player1AIName, player2AIName, pointsToWin, gamesToPlay, threads,
+                    seed);
+
+        } else if (gameType == 4) {
+            int dealsToPlay = ConsoleHelper.askUserForInteger("Enter number of deals to play (each is played twice): ");
+            int threads = ConsoleHelper.askUserForInteger("Enter number of threads: ");
+            table.competeAIsInDuplicateTournament(player1AIName, player2AIName, dealsToPlay, threads, seed);
+
         } else {
             System.out.println("Not a valid choice");
         }
 
     }
 
-    private static AIController createAIFromIndex(int index) {
-        String aiString = AIBuilder.getValidAINames().get(index - 1);
-        return AIBuilder.createAI(aiString);
-    }
-
 }
@@ -0,0 +1,150 @@
+package dominoes.players.ai;
+
+/**
+ * The totals of a duplicate tournament at an AutomatedTable, where every deal is played twice with the players'
+ * seats swapped.  A deal's score is player 1's net points over both hands (ie. points won minus points lost),
+ * so the luck of the deal cancels out (until the players' choices make the hands go differently).
+ */
+public class DuplicateResult {
+    // The 95% two-sided quantile of the normal distribution
+    private static final double Z_95 = 1.959964;
+
+    private int deals;
+    private double dealScoreSum, dealScoreSquareSum;
+    private int hands;
+    private double handScoreSum, handScoreSquareSum;
+    private int player1Wins, player2Wins, draws;
+    private long seed;
+
+    /**
+     * Records a deal.
+     *
+     * @param firstHandScore player 1's net points in the first hand (negative if player 2 won).
+     * @param secondHandScore player 1's net points in the second hand, with the seats swapped.
+     */
+    void recordDeal(int firstHandScore, int secondHandScore) {
+        recordHand(firstHandScore);
+        recordHand(secondHandScore);
+
+        int dealScore = firstHandScore + secondHandScore;
+        ++deals;
+        dealScoreSum += dealScore;
+        dealScoreSquareSum += (double) dealScore * dealScore;
+    }
+
+    private void recordHand(int handScore) {
+        ++hands;
+        handScoreSum += handScore;
+        handScoreSquareSum += (double) handScore * handScore;
+
+        if (handScore > 0)
+            ++player1Wins;
+        else if (handScore < 0)
+            ++player2Wins;
+        else
+            ++draws;
+    }
+
+    /**
+     * Adds the totals of another result (eg. from another thread) to these.
+     *
+     * @param other the result to add.
+     */
+    void merge(DuplicateResult other) {
+        deals += other.deals;
+        dealScoreSum += other.dealScoreSum;
+        dealScoreSquareSum += other.dealScoreSquareSum;
+        hands += other.hands;
+        handScoreSum += other.handScoreSum;
+        handScoreSquareSum += other.handScoreSquareSum;
+        player1Wins += other.player1Wins;
+        player2Wins += other.player2Wins;
+        draws += other.draws;
+    }
+
+    void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Gets the seed the deals were dealt from, which plays the same deals again when given to
+     * AutomatedTable.competeAIsInDuplicateTournament.
+     *
+     * @return the seed of the deals.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getDeals() {
+        return deals;
+    }
+
+    public int getPlayer1Wins() {
+        return player1Wins;
+    }
+
+    public int getPlayer2Wins() {
+        return player2Wins;
+    }
+
+    public int getDraws() {
+        return draws;
+    }
+
+    /**
+     * Gets player 1's mean net points per deal (ie. per pair of hands).  This is positive if player 1 is the
+     * better player.
+     *
+     * @return the mean paired score difference.
+     */
+    public double getMeanDifference() {
+        return deals == 0 ? 0 : dealScoreSum / deals;
+    }
+
+    /**
+     * Gets the standard error of the mean paired score difference.
+     *
+     * @return the standard error of getMeanDifference.
+     */
+    public double getStandardError() {
+        return standardError(deals, dealScoreSum, dealScoreSquareSum);
+    }
+
+    /**
+     * Gets the half-width of the 95% confidence interval of the mean paired score difference (using the
+     * normal approximation, so it's only trustworthy after a few dozen deals).
+     *
+     * @return the half-width of the confidence interval.
+     */
+    public double getConfidenceIntervalHalfWidth() {
+        return Z_95 * getStandardError();
+    }
+
+    /**
+     * Gets the standard error the mean score per deal would have had if the same hands had been dealt
+     * independently rather than in pairs, for comparison with getStandardError.  The number of games
+     * duplicate play saves is roughly the square of the ratio between them.
+     *
+     * @return the standard error of twice the mean score per hand.
+     */
+    public double getUnpairedStandardError() {
+        return 2 * standardError(hands, handScoreSum, handScoreSquareSum);
+    }
+
+    private static double standardError(int n, double sum, double squareSum) {
+        if (n < 2)
+            return Double.NaN;
+
+        double mean = sum / n;
+        double variance = Math.max(0, (squareSum - n * mean * mean) / (n - 1));
+        return Math.sqrt(variance / n);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Player 1 scored %+.2f +/- %.2f points per deal (95%% CI, %d deals; unpaired +/- %.2f), "
+                + "winning %d hands to %d (%d drawn), seed %d", getMeanDifference(), getConfidenceIntervalHalfWidth(),
+                deals, Z_95 * getUnpairedStandardError(), player1Wins, player2Wins, draws, seed);
+    }
+}
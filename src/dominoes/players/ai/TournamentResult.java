@@ -0,0 +1,67 @@
+package dominoes.players.ai;
+
+/**
+ * The totals of a tournament between two players at an AutomatedTable: how many games each won, and the
+ * points each scored over all of them.
+ */
+public class TournamentResult {
+    private int games;
+    private int player1Wins, player2Wins;
+    private long player1Score, player2Score;
+
+    /**
+     * Records a game, which is won by the player with more points.
+     *
+     * @param player1Points the points player 1 scored in the game.
+     * @param player2Points the points player 2 scored in the game.
+     */
+    void recordGame(int player1Points, int player2Points) {
+        ++games;
+        if (player1Points > player2Points)
+            ++player1Wins;
+        else
+            ++player2Wins;
+
+        player1Score += player1Points;
+        player2Score += player2Points;
+    }
+
+    /**
+     * Adds the totals of another result (eg. from another thread) to these.
+     *
+     * @param other the result to add.
+     */
+    void merge(TournamentResult other) {
+        games += other.games;
+        player1Wins += other.player1Wins;
+        player2Wins += other.player2Wins;
+        player1Score += other.player1Score;
+        player2Score += other.player2Score;
+    }
+
+    public int getGames() {
+        return games;
+    }
+
+    public int getPlayer1Wins() {
+        return player1Wins;
+    }
+
+    public int getPlayer2Wins() {
+        return player2Wins;
+    }
+
+    public long getPlayer1Score() {
+        return player1Score;
+    }
+
+    public long getPlayer2Score() {
+        return player2Score;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Player 1 won %d (scoring %d) vs Player 2 won %d (scoring %d) of %d games",
+                player1Wins, player1Score, player2Wins, player2Score, games);
+    }
+}
@@ -42,10 +42,81 @@ public class AIBuilder {
 
     private static AIController createProbabilisticAI() {
         return new ProbabilisticAI(
+                new LinearPlyManager(),
+                new RouteSelectorIncremental(),
+                new StateEnumeratorImpl(),
+                new ExpectationWeightEvaluator());
+    }
+
+    private static AIController createParallelProbabilisticAI() {
+        return new ProbabilisticAI(
+                new LinearPlyManager(),
+                new RouteSelectorForkJoin(),
+                new StateEnumeratorImpl(),
+                new ExpectationWeightEvaluator());
+    }
+
+    private static AIController createTranspositionProbabilisticAI() {
+        return new ProbabilisticAI(
+                new LinearPlyManager(),
+                new RouteSelectorTransposition(),
+                new StateEnumeratorImpl(),
+                new ExpectationWeightEvaluator());
+    }
+
+    private static AIController createExpectimaxProbabilisticAI() {
+        ExpectationWeightEvaluator handEvaluator = new ExpectationWeightEvaluator();
+        return new ProbabilisticAI(
+                new LinearPlyManager(),
+                new RouteSelectorExpectimax(handEvaluator),
+                new StateEnumeratorImpl(),
+                handEvaluator);
+    }
+
+    private static AIController createBitboardProbabilisticAI() {
+        ProbabilisticAI ai = new ProbabilisticAI(
                 new LinearPlyManager(),
                 new RouteSelectorBinary(),
                 new StateEnumeratorImpl(),
                 new ExpectationWeightEvaluator());
+        ai.setUseBitboardBoneState(true);
+        return ai;
+    }
+
+    private static AIController createArenaProbabilisticAI() {
+        ProbabilisticAI ai = new ProbabilisticAI(
+                new LinearPlyManager(),
+                new RouteSelectorIncremental(),
+                new StateEnumeratorImpl(),
+                new ExpectationWeightEvaluator());
+        ai.setUseGameStateArena(true);
+        return ai;
+    }
+
+    private static AIController createSampledPickupProbabilisticAI() {
+        return new ProbabilisticAI(
+                new LinearPlyManager(),
+                new RouteSelectorIncremental(),
+                new StateEnumeratorSampledPickups(4),
+                new ExpectationWeightEvaluator());
+    }
+
+    private static AIController createPipIndexedProbabilisticAI() {
+        ProbabilisticAI ai = new ProbabilisticAI(
+                new LinearPlyManager(),
+                new RouteSelectorIncremental(),
+                new StateEnumeratorPipIndexed(),
+                new ExpectationWeightEvaluator());
+        ai.setUseBitboardBoneState(true);
+        return ai;
+    }
+
+    private static AIController createMCTSAI() {
+        return new MCTSController();
+    }
+
+    private static AIController createParallelMCTSAI() {
+        return new ParallelMCTSController();
     }
 
     private static AIController createAIWithValueAddedPerChoice(int value) {
@@ -35,6 +35,14 @@ public interface AIController {
      */
     Choice getBestChoice();
 
+    /**
+     * Sets the time each call to getBestChoice may take, after which it returns the best choice found so far.
+     * AIs which don't search (and so are always fast) may ignore this.
+     *
+     * @param timeBudgetMillis the time budget per choice in milliseconds, or 0 for no limit.
+     */
+    void setTimeBudget(long timeBudgetMillis);
+
     /**
      * Returns the weight of the AI's hand (ie. ignoring the opponent's hand).
      *
@@ -45,6 +53,14 @@ public interface AIController {
      */
     int getHandWeight();
 
+    /**
+     * Gets the statistics of this AI's decisions (which can be registered as an MBean).  AIs which don't
+     * search only record how many decisions they made and how long they took.
+     *
+     * @return the search statistics.
+     */
+    SearchStatistics getSearchStatistics();
+
     /**
      * Returns the current game state.
      *
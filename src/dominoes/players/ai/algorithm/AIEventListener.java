@@ -0,0 +1,80 @@
+package dominoes.players.ai.algorithm;
+
+import dominoes.players.ai.algorithm.helper.Choice;
+
+/**
+ * Receives events from the AIs and the tables they play at, eg. to record them with Java Flight Recorder (see
+ * the jfr module).  Install one with AIEvents.setListener.
+ *
+ * Each ...Started call is followed by the matching ...Finished call on the same thread, unless an exception is
+ * thrown in between (eg. a GameOverException from an AIController).
+ */
+public interface AIEventListener {
+    /**
+     * Called when a ProbabilisticAI starts choosing its best choice.
+     *
+     * @param ai the AI.
+     */
+    void decisionStarted(AIController ai);
+
+    /**
+     * Called when a ProbabilisticAI has chosen its best choice.
+     *
+     * @param ai the AI.
+     * @param choice the choice made, or null if the game was over.
+     * @param statistics the AI's search statistics, whose last decision is this one.
+     */
+    void decisionFinished(AIController ai, Choice choice, SearchStatistics statistics);
+
+    /**
+     * Called when a ProbabilisticAI starts an iteration of selecting the best routes and increasing their ply
+     * (which may be while pondering, on another thread).
+     *
+     * @param ai the AI.
+     */
+    void iterationStarted(AIController ai);
+
+    /**
+     * Called when a ProbabilisticAI finishes an iteration.
+     *
+     * @param ai the AI.
+     * @param iteration the number of iterations the search has done.
+     * @param routes the number of routes selected.
+     * @param plyIncrease the ply increase given to the best route (0 if the search is finished).
+     * @param liveNodes the number of states in the tree (or 0 if it isn't known).
+     */
+    void iterationFinished(AIController ai, int iteration, int routes, int plyIncrease, int liveNodes);
+
+    /**
+     * Called when an AIPlayer is asked to make a play.
+     *
+     * @param playerName the player's name.
+     */
+    void playStarted(String playerName);
+
+    /**
+     * Called when an AIPlayer has made its play (or found it can't play).
+     *
+     * @param playerName the player's name.
+     * @param choice the choice the player's AI made, or null if the game was over.
+     */
+    void playFinished(String playerName, Choice choice);
+
+    /**
+     * Called when an AutomatedTable deals a game.
+     *
+     * @param player1 the first player.
+     * @param player2 the second player.
+     */
+    void gameStarted(AIController player1, AIController player2);
+
+    /**
+     * Called when a game at an AutomatedTable is over.
+     *
+     * @param player1 the first player.
+     * @param player2 the second player.
+     * @param winner the winner, or null for a draw.
+     * @param points the points the winner scored.
+     */
+    void gameFinished(AIController player1, AIController player2, AIController winner, int points);
+}
@@ -0,0 +1,52 @@
+package dominoes.players.ai.algorithm;
+
+/**
+ * Holds the AIEventListener which the AIs report to, if any.  When there isn't one, reporting an event costs
+ * one read of a volatile field.
+ *
+ * A listener can also be installed by naming its class (which must have a public no-argument constructor) in
+ * the dominoes.ai.eventListener system property, eg.
+ * -Ddominoes.ai.eventListener=dominoes.players.ai.jfr.JfrAIEventListener
+ */
+public final class AIEvents {
+    public static final String LISTENER_PROPERTY = "dominoes.ai.eventListener";
+
+    private static volatile AIEventListener listener = createListenerFromProperty();
+
+    private AIEvents() {
+    }
+
+    private static AIEventListener createListenerFromProperty() {
+        String className = System.getProperty(LISTENER_PROPERTY);
+        if (className == null || className.isEmpty())
+            return null;
+
+        try {
+            return (AIEventListener) Class.forName(className).newInstance();
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException("Can't find AIEventListener " + className, e);
+        } catch (InstantiationException e) {
+            throw new RuntimeException("Can't create AIEventListener " + className, e);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Can't create AIEventListener " + className, e);
+        }
+    }
+
+    /**
+     * Gets the listener events should be reported to.
+     *
+     * @return the listener, or null if there isn't one.
+     */
+    public static AIEventListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Sets the listener events are reported to.
+     *
+     * @param newListener the listener, or null to stop reporting events.
+     */
+    public static void setListener(AIEventListener newListener) {
+        listener = newListener;
+    }
+}
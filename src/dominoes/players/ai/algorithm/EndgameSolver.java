@@ -0,0 +1,261 @@
+package dominoes.players.ai.algorithm;
+
+import dominoes.players.ai.algorithm.helper.BoneState;
+import dominoes.players.ai.algorithm.helper.Bones;
+import dominoes.players.ai.algorithm.helper.Choice;
+import dominoes.players.ai.algorithm.helper.MoveList;
+
+/**
+ * Solves the endgame exactly once the boneyard is empty, when every unknown bone must be in the opponent's
+ * hand and the rest of the game is a deterministic two-player game.
+ *
+ * Positions are the two hands (as masks over Bones.indexOf), the layout ends, whose turn it is and whether
+ * the last move was a pass.  They're searched with full minimax, and each position's value is memoised in
+ * an open-addressed table (which is kept between solves, since values don't depend on how the position was
+ * reached).  A position's value is the points scored at the end of the game as AutomatedTable counts them:
+ * the loser's hand weight, positive if I win and negative if the opponent wins (and 0 for a draw).
+ */
+public class EndgameSolver {
+    private static final int DEFAULT_MAXIMUM_SIZE = 1 << 20;
+
+    private final int maximumSize;
+    private final MoveList[] moveLists = new MoveList[2 * Bones.NUMBER_OF_BONES + 2];
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int lastScore;
+
+    public EndgameSolver() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * Creates an EndgameSolver whose table is cleared when it holds the given number of positions.
+     *
+     * @param maximumSize the maximum number of positions to memoise.
+     */
+    public EndgameSolver(int maximumSize) {
+        if (maximumSize < 1)
+            throw new IllegalArgumentException("maximumSize must be at least 1");
+        this.maximumSize = maximumSize;
+        clear();
+    }
+
+    /**
+     * Checks whether the given BoneState is an endgame this can solve (ie. the boneyard is empty, so the
+     * opponent has every unknown bone).
+     *
+     * @param boneState the BoneState to check.
+     * @return true iff the opponent's hand is known.
+     */
+    public static boolean isSolvable(BoneState boneState) {
+        return boneState.getSizeOfBoneyard() == 0 && !boneState.isLayoutEmpty()
+                && boneState.getUnknownBones().size() == boneState.getSizeOfOpponentHand();
+    }
+
+    /**
+     * Gets the best choice for me from the given endgame, where it is my turn.  The game mustn't be over.
+     *
+     * @param boneState the endgame to solve (see isSolvable).
+     * @return the best choice, which is PLACED_RIGHT if a bone can go on either end of a layout whose ends
+     *         are equal.
+     */
+    public Choice getBestChoice(BoneState boneState) {
+        if (!isSolvable(boneState))
+            throw new IllegalArgumentException("The opponent's hand isn't known: " + boneState);
+
+        int myBones = Bones.toMask(boneState.getMyBones());
+        int opponentBones = Bones.toMask(boneState.getUnknownBones());
+        int layoutLeft = boneState.getLayoutLeft();
+        int layoutRight = boneState.getLayoutRight();
+
+        MoveList moves = getMoveList(myBones, opponentBones, false);
+        moves.clear();
+        moves.addPlacements(myBones, layoutLeft, layoutRight);
+
+        Choice bestChoice = Choice.valueOf(Choice.Action.PASS, null);
+        int bestValue = Integer.MIN_VALUE;
+
+        for (int i = 0; i < moves.size(); ++i) {
+            int value = valueAfterPlacing(myBones, opponentBones, true, moves.get(i), layoutLeft, layoutRight);
+            if (value > bestValue) {
+                bestValue = value;
+                bestChoice = MoveList.toChoice(moves.get(i));
+            }
+        }
+
+        if (bestValue == Integer.MIN_VALUE)
+            bestValue = getValue(myBones, opponentBones, layoutLeft, layoutRight, false, true);
+
+        lastScore = bestValue;
+        return bestChoice;
+    }
+
+    /**
+     * Gets the value of the endgame solved by the last call to getBestChoice, if the best choice is made
+     * (and both players play perfectly afterwards).
+     *
+     * @return the points scored at the end of the game, positive if I win.
+     */
+    public int getLastScore() {
+        return lastScore;
+    }
+
+    /**
+     * Gets the number of positions memoised.
+     *
+     * @return the size of the table.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Empties the table of memoised positions.
+     */
+    public void clear() {
+        keys = new long[1024];
+        values = new int[1024];
+        size = 0;
+    }
+
+    /**
+     * Gets the value of the position after the given placement (encoded as in MoveList).
+     */
+    private int valueAfterPlacing(int myBones, int opponentBones, boolean isMyTurn, int placement,
+                                  int layoutLeft, int layoutRight) {
+        int boneIndex = MoveList.getBoneIndex(placement);
+        int boneMask = 1 << boneIndex;
+        int left = Bones.getBone(boneIndex).left();
+        int right = Bones.getBone(boneIndex).right();
+
+        if (MoveList.getAction(placement) == Choice.Action.PLACED_RIGHT)
+            layoutRight = (left == layoutRight) ? right : left;
+        else
+            layoutLeft = (left == layoutLeft) ? right : left;
+
+        if (isMyTurn)
+            myBones &= ~boneMask;
+        else
+            opponentBones &= ~boneMask;
+
+        if (myBones == 0 || opponentBones == 0)
+            return getFinalScore(myBones, opponentBones);
+
+        return getValue(myBones, opponentBones, layoutLeft, layoutRight, !isMyTurn, false);
+    }
+
+    /**
+     * Gets the value of the position where it's the given player's turn.
+     */
+    private int getValue(int myBones, int opponentBones, int layoutLeft, int layoutRight,
+                         boolean isMyTurn, boolean lastMoveWasPass) {
+        long key = (long) myBones | ((long) opponentBones << 28) | ((long) layoutLeft << 56)
+                | ((long) layoutRight << 59) | (isMyTurn ? 1L << 62 : 0) | (lastMoveWasPass ? 1L << 63 : 0);
+
+        int slot = findSlot(key);
+        if (keys[slot] == key)
+            return values[slot];
+
+        MoveList moves = getMoveList(myBones, opponentBones, lastMoveWasPass);
+        moves.clear();
+        moves.addPlacements(isMyTurn ? myBones : opponentBones, layoutLeft, layoutRight);
+        int bestValue = isMyTurn ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+
+        for (int i = 0; i < moves.size(); ++i)
+            bestValue = best(bestValue, valueAfterPlacing(myBones, opponentBones, isMyTurn, moves.get(i),
+                    layoutLeft, layoutRight), isMyTurn);
+
+        // If the player can't place, they pass (and if both players pass, the game is over).
+        if (bestValue == Integer.MIN_VALUE || bestValue == Integer.MAX_VALUE) {
+            if (lastMoveWasPass)
+                bestValue = getFinalScore(myBones, opponentBones);
+            else
+                bestValue = getValue(myBones, opponentBones, layoutLeft, layoutRight, !isMyTurn, true);
+        }
+
+        store(key, bestValue);
+        return bestValue;
+    }
+
+    /**
+     * Gets the MoveList for a position being searched.  Each move places a bone, or passes when the last
+     * move didn't, so every position searched below this one has fewer bones left (or the same bones, after
+     * a pass), and no two positions being searched at once share a list.
+     */
+    private MoveList getMoveList(int myBones, int opponentBones, boolean lastMoveWasPass) {
+        int level = 2 * Integer.bitCount(myBones | opponentBones) + (lastMoveWasPass ? 0 : 1);
+
+        if (moveLists[level] == null)
+            moveLists[level] = new MoveList();
+
+        return moveLists[level];
+    }
+
+    private static int best(int bestValue, int value, boolean isMyTurn) {
+        return isMyTurn ? Math.max(bestValue, value) : Math.min(bestValue, value);
+    }
+
+    /**
+     * Gets the points scored when the game ends with the given hands: whoever placed all their bones wins,
+     * or else whoever has the lightest hand, and scores the weight of the other player's hand.
+     */
+    private static int getFinalScore(int myBones, int opponentBones) {
+        int myWeight = getWeight(myBones);
+        int opponentWeight = getWeight(opponentBones);
+
+        if (myBones == 0 || (opponentBones != 0 && myWeight < opponentWeight))
+            return opponentWeight;
+        if (opponentBones == 0 || myWeight > opponentWeight)
+            return -myWeight;
+        return 0;
+    }
+
+    private static int getWeight(int bones) {
+        int weight = 0;
+        for (int remaining = bones; remaining != 0; remaining &= remaining - 1)
+            weight += Bones.getBone(Integer.numberOfTrailingZeros(remaining)).weight();
+        return weight;
+    }
+
+    /**
+     * Finds the slot holding the given key, or the empty slot where it would go.  (No stored key is 0,
+     * since I always have a bone in a position that isn't over.)
+     */
+    private int findSlot(long key) {
+        int mask = keys.length - 1;
+        int slot = (int) (key ^ (key >>> 29) ^ (key >>> 47)) * 0x9E3779B9 >>> 8 & mask;
+
+        while (keys[slot] != 0 && keys[slot] != key)
+            slot = (slot + 1) & mask;
+
+        return slot;
+    }
+
+    private void store(long key, int value) {
+        if (size >= maximumSize)
+            clear();
+        else if (2 * (size + 1) > keys.length)
+            resize();
+
+        int slot = findSlot(key);
+        keys[slot] = key;
+        values[slot] = value;
+        ++size;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldKeys[i] != 0) {
+                int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package dominoes.players.ai.algorithm;
 
 import dominoes.players.ai.algorithm.helper.BoneState;
 import dominoes.players.ai.algorithm.helper.Choice;
+import dominoes.players.ai.algorithm.helper.Route;
 
 import java.util.List;
 
@@ -31,6 +32,9 @@ public interface GameState {
     /**
      * Applies a choice, and returns the GameState representing the new state.
      *
+     * NB. the new state becomes the root of the tree (ie. its parent is set to null) so the rest of
+     * the tree can be garbage collected.
+     *
      * @param choice the choice to apply.
      * @return the resulting GameState.
      */
@@ -53,17 +57,57 @@ public interface GameState {
     /**
      * Gets the parent state (ie. the state which this.getChoiceTaken() was applied to).
      *
-     * @return the parent state.
+     * @return the parent state, or null if this is the root of the tree.
      */
     GameState getParent();
 
     /**
      * Increase the ply for this state (ie. the depth allowed for this branch of the GameState tree).
      *
+     * NB. this invalidates the cached best route of this state and its ancestors.
+     *
      * @param plyIncrease the amount to increase the ply by.
      */
     void increasePly(int plyIncrease);
 
+    /**
+     * Gets the best route from this state cached by a RouteSelector, or null if there isn't one
+     * or the tree beneath this state has changed since it was cached (ie. it is dirty).
+     *
+     * NB. the returned route must not be modified.
+     *
+     * @return the cached best route, or null.
+     */
+    Route getCachedBestRoute();
+
+    /**
+     * Caches the best route from this state, which stays valid until the tree beneath this state changes.
+     *
+     * @param bestRoute the best route from this state (which must not be modified afterwards).
+     */
+    void setCachedBestRoute(Route bestRoute);
+
+    /**
+     * Marks the cached best route of this state and all its ancestors as dirty.
+     */
+    void invalidateCachedBestRoute();
+
+    /**
+     * Gets the number of levels below this state which are allowed to be expanded (ie. the depth
+     * this state would be searched to).
+     *
+     * @return the remaining ply below this state.
+     */
+    int getRemainingPly();
+
+    /**
+     * Gets an upper bound on the depth of the tree beneath this state, including states which
+     * haven't been expanded yet but would be (ie. the most moves any route from this state can have).
+     *
+     * @return an upper bound on the depth of the tree beneath this state.
+     */
+    int getMaxRemainingPlyInSubtree();
+
     /**
      * Gets the value of my hand.
      *
@@ -78,4 +122,12 @@ public interface GameState {
      */
     BoneState getBoneState();
 
+    /**
+     * Gets the Zobrist hash of this position (ie. the BoneState's hash combined with whose turn it is
+     * and how many passes have just been made), which is the same for transpositions of this state.
+     *
+     * @return the Zobrist hash of this position.
+     */
+    long getZobristHash();
+
 }
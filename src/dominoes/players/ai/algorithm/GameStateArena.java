@@ -0,0 +1,115 @@
+package dominoes.players.ai.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A store of GameStateImpl nodes which have been discarded (eg. the branches not taken when a choice
+ * is made, or the whole tree when a new game starts), so they can be reused rather than allocated again.
+ *
+ * Recycled states keep their list of children, so each reuse saves allocating a GameStateImpl and an
+ * ArrayList.  At most maximumSize states are kept; beyond that, discarded states are left to the garbage
+ * collector.  Thread safe (eg. for RouteSelectorForkJoin, which expands states in several threads).
+ *
+ * NB. a released state must no longer be referenced anywhere (eg. in a Route or a TranspositionTable
+ * that will still be used).
+ */
+public class GameStateArena {
+    private static final int DEFAULT_MAXIMUM_SIZE = 1 << 18;
+
+    private final int maximumSize;
+    private final List<GameStateImpl> freeStates = new ArrayList<GameStateImpl>();
+    private final List<GameState> statesToRelease = new ArrayList<GameState>();
+    private long allocated, reused;
+
+    /**
+     * Creates a GameStateArena which keeps up to 2^18 states for reuse.
+     */
+    public GameStateArena() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * Creates a GameStateArena which keeps up to the given number of states for reuse.
+     *
+     * @param maximumSize the most states to keep for reuse.
+     */
+    public GameStateArena(int maximumSize) {
+        if (maximumSize < 0)
+            throw new IllegalArgumentException("maximumSize must not be negative");
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Gets an uninitialised GameStateImpl, reusing a released one if possible.
+     *
+     * @return an uninitialised GameStateImpl.
+     */
+    synchronized GameStateImpl obtain() {
+        if (freeStates.isEmpty()) {
+            ++allocated;
+            return new GameStateImpl();
+        }
+
+        ++reused;
+        return freeStates.remove(freeStates.size() - 1);
+    }
+
+    /**
+     * Releases the given state and all of its descendants for reuse.
+     *
+     * @param root the root of the subtree to release.
+     */
+    public void release(GameState root) {
+        release(root, null);
+    }
+
+    /**
+     * Releases the given state and all of its descendants, except for the given descendant (and its
+     * descendants), for reuse.
+     *
+     * @param root the root of the subtree to release.
+     * @param retainedState a descendant of root to keep, or null to release the whole subtree.
+     */
+    public synchronized void release(GameState root, GameState retainedState) {
+        statesToRelease.add(root);
+
+        while (!statesToRelease.isEmpty()) {
+            GameStateImpl state = (GameStateImpl) statesToRelease.remove(statesToRelease.size() - 1);
+            if (state == retainedState)
+                continue;
+
+            state.recycle(statesToRelease);
+
+            if (freeStates.size() < maximumSize)
+                freeStates.add(state);
+        }
+    }
+
+    /**
+     * Gets the number of states which have been allocated (ie. couldn't be reused).
+     *
+     * @return the number of states allocated.
+     */
+    public long getAllocated() {
+        return allocated;
+    }
+
+    /**
+     * Gets the number of states which have been reused.
+     *
+     * @return the number of states reused.
+     */
+    public long getReused() {
+        return reused;
+    }
+
+    /**
+     * Gets the number of released states waiting to be reused.
+     *
+     * @return the number of free states.
+     */
+    public int getSize() {
+        return freeStates.size();
+    }
+}
@@ -5,6 +5,7 @@ import dominoes.players.ai.algorithm.components.StateEnumerator;
 import dominoes.players.ai.algorithm.helper.*;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 import static dominoes.players.ai.algorithm.helper.Choice.Action;
 
@@ -13,19 +14,34 @@ import static dominoes.players.ai.algorithm.helper.Choice.Action;
  */
 public class GameStateImpl implements GameState {
 
-    private final StateEnumerator stateEnumerator;
-    private final HandEvaluator handEvaluator;
-    private final double value;
-    private final boolean isMyTurn;
-    private final int moveNumber;
-    private final MoveCounter moveCounter;
-    private final GameState parent;
-    private final Choice choiceTaken;
-    private final BoneState boneState;
+    // NB. these are only non-final so nodes can be recycled by a GameStateArena.
+    private StateEnumerator stateEnumerator;
+    private HandEvaluator handEvaluator;
+    private GameStateArena arena;
+    private NodeBudget nodeBudget;
+    private SearchStatistics searchStatistics;
+    private double value;
+    private boolean isMyTurn;
+    private int moveNumber;
+    private MoveCounter moveCounter;
+    private Choice choiceTaken;
+    private int consecutivePasses;
+    private BoneState boneState;
+
+    private GameStateImpl parent;
 
     private List<GameState> childStates = Collections.emptyList();
+    private List<GameState> childStateList, childStateListView;
     private Status status = Status.NOT_YET_CALCULATED;
     private int extraPly;
+    private int maxExtraPlyInSubtree;
+    private Route cachedBestRoute;
+    private int cachedBestRouteMovesPlayed;
+    // Stamped by whichever thread visits this state (eg. a RouteSelectorForkJoin worker).
+    private volatile long lastVisited;
+
+    private static final AtomicLongFieldUpdater<GameStateImpl> lastVisitedUpdater =
+            AtomicLongFieldUpdater.newUpdater(GameStateImpl.class, "lastVisited");
 
     /**
      * Creates an initial GameState (ie. at the beginning of the game, with an empty layout).
@@ -39,44 +55,118 @@ public class GameStateImpl implements GameState {
      */
     public GameStateImpl(StateEnumerator stateEnumerator, HandEvaluator handEvaluator,
                          int minPly, List<ImmutableBone> myBones, boolean isMyTurn, ImmutableBone... initialLayout) {
+        this(stateEnumerator, handEvaluator, minPly, new BoneStateImpl(myBones, initialLayout), isMyTurn);
+    }
+
+    /**
+     * Creates an initial GameState from the given initial BoneState (eg. to use a BoneState
+     * implementation other than BoneStateImpl).
+     *
+     * @param stateEnumerator the StateEnumerator object to use to enumerate child states.
+     * @param handEvaluator the HandEvaluator object to use to evaluate this and future hands.
+     * @param minPly the initial extraPly to give to this and all child states.
+     * @param initialBoneState the BoneState at the beginning of the game.
+     * @param isMyTurn true iff the first turn is mine.
+     */
+    public GameStateImpl(StateEnumerator stateEnumerator, HandEvaluator handEvaluator,
+                         int minPly, BoneState initialBoneState, boolean isMyTurn) {
+        this(stateEnumerator, handEvaluator, minPly, initialBoneState, isMyTurn, null, null);
+    }
+
+    /**
+     * Creates an initial GameState from the given initial BoneState, whose descendants are taken from
+     * (and, when discarded, returned to) the given GameStateArena, and whose tree is kept within the
+     * given NodeBudget.
+     *
+     * @param stateEnumerator the StateEnumerator object to use to enumerate child states.
+     * @param handEvaluator the HandEvaluator object to use to evaluate this and future hands.
+     * @param minPly the initial extraPly to give to this and all child states.
+     * @param initialBoneState the BoneState at the beginning of the game.
+     * @param isMyTurn true iff the first turn is mine.
+     * @param arena the arena to recycle states with, or null to always create new states.
+     * @param nodeBudget the budget for the size of the tree (which mustn't be shared with another tree),
+     *                   or null for no limit.
+     */
+    public GameStateImpl(StateEnumerator stateEnumerator, HandEvaluator handEvaluator, int minPly,
+                         BoneState initialBoneState, boolean isMyTurn, GameStateArena arena, NodeBudget nodeBudget) {
+        this(stateEnumerator, handEvaluator, minPly, initialBoneState, isMyTurn, arena, nodeBudget, null);
+    }
+
+    /**
+     * Creates an initial GameState from the given initial BoneState, whose descendants are taken from
+     * (and, when discarded, returned to) the given GameStateArena, and whose tree is kept within the
+     * given NodeBudget, and whose expanded nodes are counted in the given SearchStatistics.
+     *
+     * @param stateEnumerator the StateEnumerator object to use to enumerate child states.
+     * @param handEvaluator the HandEvaluator object to use to evaluate this and future hands.
+     * @param minPly the initial extraPly to give to this and all child states.
+     * @param initialBoneState the BoneState at the beginning of the game.
+     * @param isMyTurn true iff the first turn is mine.
+     * @param arena the arena to recycle states with, or null to always create new states.
+     * @param nodeBudget the budget for the size of the tree (which mustn't be shared with another tree),
+     *                   or null for no limit.
+     * @param searchStatistics the statistics to count the nodes expanded in, or null not to count them.
+     */
+    public GameStateImpl(StateEnumerator stateEnumerator, HandEvaluator handEvaluator, int minPly,
+                         BoneState initialBoneState, boolean isMyTurn, GameStateArena arena, NodeBudget nodeBudget,
+                         SearchStatistics searchStatistics) {
         this.isMyTurn = isMyTurn;
         this.stateEnumerator = stateEnumerator;
         this.handEvaluator = handEvaluator;
+        this.arena = arena;
+        this.nodeBudget = nodeBudget;
+        this.searchStatistics = searchStatistics;
+
+        if (nodeBudget != null)
+            nodeBudget.setRoot(this);
 
         moveCounter = new MoveCounter(minPly);
         parent = null;
         moveNumber = 0;
         choiceTaken = null;
-        boneState = new BoneStateImpl(myBones, initialLayout);
+        consecutivePasses = 0;
+        boneState = initialBoneState;
 
         value = handEvaluator.evaluateInitialValue(boneState);
         extraPly = 0;
     }
 
     /**
-     * A helper function to clarify calls to the GameState(GameState previous, Choice choiceTaken) constructor.
+     * Creates an uninitialised GameState, for a GameStateArena to hand out.
+     */
+    GameStateImpl() {
+    }
+
+    /**
+     * A helper function to create (or recycle) the child GameState from applying the given choice.
      *
      * @param choice the choice taken.
      * @return the resulting GameState after applying the given choice to this state.
      */
     private GameStateImpl createNextState(Choice choice) {
-        return new GameStateImpl(this, choice);
+        GameStateImpl nextState = (arena == null) ? new GameStateImpl() : arena.obtain();
+        nextState.initialise(this, choice);
+        return nextState;
     }
 
     /**
-     * Creates a new GameState from applying a choice to a parent state.
+     * Initialises this (new or recycled) GameState from applying a choice to a parent state.
      *
      * @param parent the state to base this new one off of.
      * @param choiceTaken the choice taken in going from 'parent' to this.
      */
-    private GameStateImpl(GameStateImpl parent, Choice choiceTaken) {
+    private void initialise(GameStateImpl parent, Choice choiceTaken) {
         this.choiceTaken = choiceTaken;
+        this.consecutivePasses = (choiceTaken.getAction() == Action.PASS) ? Math.min(parent.consecutivePasses + 1, 2) : 0;
         this.moveNumber = parent.moveNumber + 1;
         this.moveCounter = parent.moveCounter;
         this.parent = parent;
         this.extraPly = parent.extraPly;
         this.handEvaluator = parent.handEvaluator;
         this.stateEnumerator = parent.stateEnumerator;
+        this.arena = parent.arena;
+        this.nodeBudget = parent.nodeBudget;
+        this.searchStatistics = parent.searchStatistics;
 
         if (choiceTaken.getAction() == Action.PICKED_UP)
 //        if (parent.getChoiceTaken() != null && parent.getChoiceTaken().getAction() == Action.PICKED_UP)
@@ -91,6 +181,9 @@ public class GameStateImpl implements GameState {
         this.value = parent.getValue() + handEvaluator.addedValueFromChoice(parent.getBoneState(), parent.isMyTurn(),
                 lastChoiceWasPass, choiceTaken);
         extraPly = Math.max(parent.extraPly - 1, 0);
+        maxExtraPlyInSubtree = extraPly;
+        // A recycled state's time is from an earlier tree's clock.
+        lastVisited = 0;
     }
 
     /**
@@ -116,33 +209,37 @@ public class GameStateImpl implements GameState {
         if (desired_status == Status.HAS_CHILD_STATES) {
             List<Choice> validChoicesList = getValidChoices();
 
-            List<GameState> childStates;
-
             // If this is the second pass in a row, it's game over
-            if (choiceTaken != null && choiceTaken.getAction() == Action.PASS
-                    && parent.getChoiceTaken() != null && parent.getChoiceTaken().getAction() == Action.PASS)
-                childStates = Collections.emptyList();
+            if (consecutivePasses == 2)
+                status = Status.GAME_OVER;
 
             // If the opponent has placed all of their bones, it's game over
             else if (boneState.getSizeOfOpponentHand() == 0)
-                childStates = Collections.emptyList();
+                status = Status.GAME_OVER;
 
             // If I have placed all of my bones, it's game over
             else if (boneState.getMyBones().isEmpty())
-                childStates = Collections.emptyList();
+                status = Status.GAME_OVER;
 
             else {
-                childStates = new ArrayList<GameState>(validChoicesList.size());
+                // A recycled state keeps its list (and view of it), so it doesn't need creating again.
+                if (childStateList == null) {
+                    childStateList = new ArrayList<GameState>(validChoicesList.size());
+                    childStateListView = Collections.unmodifiableList(childStateList);
+                }
                 for (Choice choice : validChoicesList)
-                    childStates.add(createNextState(choice));
-            }
+                    childStateList.add(createNextState(choice));
 
-            if (childStates.isEmpty())
-                status = Status.GAME_OVER;
-            else
-                status = Status.HAS_CHILD_STATES;
+                status = childStateList.isEmpty() ? Status.GAME_OVER : Status.HAS_CHILD_STATES;
+
+                if (nodeBudget != null)
+                    nodeBudget.addStates(childStateList.size());
+                if (searchStatistics != null)
+                    searchStatistics.nodeExpanded(moveNumber + 1 - moveCounter.getMovesPlayed());
+            }
 
-            this.childStates = Collections.unmodifiableList(childStates);
+            if (status == Status.HAS_CHILD_STATES)
+                this.childStates = childStateListView;
         }
     }
 
@@ -160,6 +257,9 @@ public class GameStateImpl implements GameState {
 
     @Override
     public List<GameState> getChildStates() {
+        if (nodeBudget != null)
+            markVisited(nodeBudget.tick());
+
         lazyChildrenInitialisation();
         return childStates;
     }
@@ -180,6 +280,9 @@ public class GameStateImpl implements GameState {
             chosenState = createNextState(choice);
         }
 
+        if (chosenState == null && (isUnenumeratedPickup(choice) || isMirroredPlacement(choice)))
+            chosenState = createNextState(choice);
+
         if (chosenState == null) {
             Set<Choice> validChoices = new HashSet<Choice>();
             for (GameState childState : getChildStates()) {
@@ -196,9 +299,155 @@ public class GameStateImpl implements GameState {
         }
 
         moveCounter.incrementMovesPlayed();
+        ((GameStateImpl) chosenState).makeRoot();
+
+        // The rest of the tree won't be used again.
+        if (arena != null)
+            arena.release(this, chosenState);
+
         return chosenState;
     }
 
+    /**
+     * Checks whether the given choice is me picking up an unknown bone, which the StateEnumerator may not
+     * have enumerated (eg. if it only samples some of my pickups).
+     *
+     * @param choice the choice to check.
+     * @return true iff the choice is me picking up an unknown bone.
+     */
+    private boolean isUnenumeratedPickup(Choice choice) {
+        return isMyTurn && choice.getAction() == Action.PICKED_UP && choice.getBone() != null
+                && boneState.getUnknownBones().contains(choice.getBone());
+    }
+
+    /**
+     * Checks whether the given choice is placing a bone on the left of a layout whose ends are equal,
+     * which the StateEnumerator only enumerates on the right (since the positions are equivalent).
+     *
+     * NB. the equivalent state isn't used in its place, since its layout is the other way round.
+     *
+     * @param choice the choice to check.
+     * @return true iff the choice is valid but was enumerated as PLACED_RIGHT.
+     */
+    private boolean isMirroredPlacement(Choice choice) {
+        if (choice.getAction() != Action.PLACED_LEFT || boneState.isLayoutEmpty()
+                || boneState.getLayoutLeft() != boneState.getLayoutRight())
+            return false;
+
+        return getValidChoices().contains(Choice.valueOf(Action.PLACED_RIGHT, choice.getBone()));
+    }
+
+    /**
+     * Detaches this state from its parent, so the rest of the tree (ie. the parent and its other
+     * descendants) can be garbage collected.  Routes from this state and its descendants still work,
+     * but can't be extended back past this state.
+     */
+    private void makeRoot() {
+        parent = null;
+
+        // The cached route is from the parent, so would keep it reachable.
+        cachedBestRoute = null;
+
+        if (nodeBudget != null)
+            nodeBudget.setRoot(this);
+    }
+
+    /**
+     * Gets the child states created so far, without creating any more.
+     *
+     * @return the child states created so far.
+     */
+    List<GameState> getExpandedChildStates() {
+        return childStates;
+    }
+
+    /**
+     * Gets when getChildStates was last called (according to the NodeBudget's clock).
+     *
+     * @return when getChildStates was last called.
+     */
+    long getLastVisited() {
+        return lastVisited;
+    }
+
+    /**
+     * Records that getChildStates was called at the given time, unless a later visit has already been
+     * recorded (by another thread).
+     */
+    private void markVisited(long time) {
+        long last;
+        do {
+            last = lastVisited;
+            if (last >= time)
+                return;
+        } while (!lastVisitedUpdater.compareAndSet(this, last, time));
+    }
+
+    /**
+     * Discards this state's children (and so its whole subtree), and lowers its ply so it's at the edge
+     * of the tree.  The children are created again when its ply is increased (or when playing a move
+     * raises the minimum ply past it).  If this state's best route is cached, the best route's value is
+     * kept, as the value of a route ending here.
+     *
+     * NB. the discarded states aren't released to the GameStateArena, since routes may still refer to them.
+     */
+    void collapse() {
+        if (status != Status.HAS_CHILD_STATES)
+            return;
+
+        Route bestRoute = getCachedBestRoute();
+
+        status = Status.NOT_YET_CALCULATED;
+        childStates = Collections.emptyList();
+        childStateList = null;
+        childStateListView = null;
+        extraPly = moveNumber - moveCounter.getMovesPlayed() - moveCounter.getMinPly();
+        maxExtraPlyInSubtree = extraPly;
+
+        // The ancestors' cached routes go through the discarded states, so would keep them reachable.
+        if (parent != null)
+            parent.invalidateCachedBestRoute();
+
+        if (bestRoute != null) {
+            // Cached routes start at the state's parent (see RouteSelectorBinary.getReducedRoute).  The
+            // root is never collapsed, so there is a parent.
+            Route collapsedRoute = new Route(this);
+            collapsedRoute.extendBackward();
+            collapsedRoute.increaseValue(bestRoute.getValue() - collapsedRoute.getValue());
+            setCachedBestRoute(collapsedRoute);
+        } else {
+            cachedBestRoute = null;
+        }
+    }
+
+    /**
+     * Clears this state's references (so they can be garbage collected while it's waiting to be reused),
+     * and adds its children (if it has any) to the given list.
+     *
+     * @param children the list to add this state's children to.
+     */
+    void recycle(List<GameState> children) {
+        if (status == Status.HAS_CHILD_STATES) {
+            children.addAll(childStateList);
+            childStateList.clear();
+        }
+
+        childStates = Collections.emptyList();
+        status = Status.NOT_YET_CALCULATED;
+        stateEnumerator = null;
+        handEvaluator = null;
+        arena = null;
+        nodeBudget = null;
+        searchStatistics = null;
+        moveCounter = null;
+        choiceTaken = null;
+        boneState = null;
+        parent = null;
+        cachedBestRoute = null;
+        extraPly = 0;
+        maxExtraPlyInSubtree = 0;
+    }
+
     @Override
     public Choice getChoiceTaken() {
         return choiceTaken;
@@ -217,6 +466,45 @@ public class GameStateImpl implements GameState {
     @Override
     public void increasePly(int plyIncrease) {
         extraPly += plyIncrease;
+        invalidateCachedBestRoute();
+
+        // A child's extraPly is never more than its parent's when it's created, so only increasing
+        // the ply can raise the maximum for the ancestors.
+        for (GameStateImpl state = this; state != null && state.maxExtraPlyInSubtree < extraPly; state = state.parent)
+            state.maxExtraPlyInSubtree = extraPly;
+    }
+
+    @Override
+    public int getMaxRemainingPlyInSubtree() {
+        int deepestMoveNumber = moveCounter.getMovesPlayed() + moveCounter.getMinPly() + maxExtraPlyInSubtree;
+        return Math.max(deepestMoveNumber - moveNumber, 0);
+    }
+
+    @Override
+    public Route getCachedBestRoute() {
+        // Playing a move lets every state at the edge of the tree expand, so invalidates every cached route.
+        if (cachedBestRouteMovesPlayed != moveCounter.getMovesPlayed())
+            return null;
+
+        return cachedBestRoute;
+    }
+
+    @Override
+    public void setCachedBestRoute(Route bestRoute) {
+        cachedBestRoute = bestRoute;
+        cachedBestRouteMovesPlayed = moveCounter.getMovesPlayed();
+    }
+
+    @Override
+    public void invalidateCachedBestRoute() {
+        // If a state is dirty, so are its ancestors (since they were cached after it), so stop there.
+        for (GameState state = this; state != null && state.getCachedBestRoute() != null; state = state.getParent())
+            state.setCachedBestRoute(null);
+    }
+
+    @Override
+    public int getRemainingPly() {
+        return moveCounter.getMovesPlayed() + moveCounter.getMinPly() + extraPly - moveNumber;
     }
 
     @Override
@@ -229,6 +517,17 @@ public class GameStateImpl implements GameState {
         return boneState;
     }
 
+    @Override
+    public long getZobristHash() {
+        long hash = boneState.getZobristHash();
+
+        if (isMyTurn)
+            hash ^= Zobrist.myTurn();
+
+        // Two passes in a row is game over, so the number of passes just made is part of the position.
+        return hash ^ Zobrist.consecutivePasses(consecutivePasses);
+    }
+
     @Override
     public String toString() {
         return String.format("%s %s , now value = %.1f , i have %d, opponent has %d, boneyard has %d%n",
@@ -0,0 +1,451 @@
+package dominoes.players.ai.algorithm;
+
+import dominoes.players.ai.algorithm.helper.BoneState;
+import dominoes.players.ai.algorithm.helper.Bones;
+import dominoes.players.ai.algorithm.helper.Choice;
+import dominoes.players.ai.algorithm.helper.ImmutableBone;
+import dominoes.players.ai.algorithm.helper.MoveList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * AIController which chooses by Monte Carlo tree search, rather than by enumerating every state.
+ *
+ * Each playout samples a determinization (a concrete opponent hand, drawn using the BoneState's probability
+ * that the opponent has each bone, with the rest of the unknown bones shuffled into the boneyard) and plays
+ * it out to the end of the game, using UCT to select moves in the tree and random or heuristic moves after
+ * it.  Since the opponent's moves depend on the determinization, there's a single tree of moves (as in
+ * single-observer information set MCTS), and each move's exploration term uses the number of playouts in
+ * which it was available rather than its parent's visits.  The most visited move is chosen.
+ *
+ * The cost is proportional to the number of playouts, which is limited by a playout budget and (optionally)
+ * a time budget.
+ */
+public class MCTSController extends SimpleAIController {
+    private static final int PICK_UP = MoveList.encode(Choice.Action.PICKED_UP, -1);
+    private static final int PASS = MoveList.encode(Choice.Action.PASS, -1);
+
+    /**
+     * The number of different moves, which are encoded as in MoveList (with no bone for a pickup, since the
+     * bone picked up depends on the determinization).
+     */
+    protected static final int NUMBER_OF_MOVES = MoveList.NUMBER_OF_MOVES;
+
+    private final Random random;
+    private int playoutBudget = 5000;
+    private long timeBudgetMillis = 0;
+    private double explorationConstant = 0.7;
+    private boolean heuristicPlayouts = true;
+    private int playoutsInLastSearch;
+
+    public MCTSController() {
+        this(new Random());
+    }
+
+    /**
+     * Creates an MCTSController which samples determinizations and moves using the given Random.
+     *
+     * @param random the source of randomness.
+     */
+    public MCTSController(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * Sets the number of playouts for each call to getBestChoice.
+     *
+     * @param playoutBudget the number of playouts per choice, or 0 for no limit (in which case there must
+     *                      be a time budget).
+     */
+    public void setPlayoutBudget(int playoutBudget) {
+        if (playoutBudget < 0)
+            throw new IllegalArgumentException("playoutBudget must not be negative");
+        this.playoutBudget = playoutBudget;
+    }
+
+    @Override
+    public void setTimeBudget(long timeBudgetMillis) {
+        if (timeBudgetMillis < 0)
+            throw new IllegalArgumentException("timeBudgetMillis must not be negative");
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    /**
+     * Sets the UCT exploration constant (rewards are between 0 and 1).
+     *
+     * @param explorationConstant the exploration constant.
+     */
+    public void setExplorationConstant(double explorationConstant) {
+        this.explorationConstant = explorationConstant;
+    }
+
+    /**
+     * Sets whether playouts place the heaviest bone they can (like ShortSightedAIController), rather than
+     * a random one.
+     *
+     * @param heuristicPlayouts true for heuristic playouts, false for random playouts.
+     */
+    public void setHeuristicPlayouts(boolean heuristicPlayouts) {
+        this.heuristicPlayouts = heuristicPlayouts;
+    }
+
+    /**
+     * Gets the number of playouts done by the last call to getBestChoice (which is 0 if there was only one
+     * choice, so no search was needed).
+     *
+     * @return the number of playouts in the last search.
+     */
+    public int getPlayoutsInLastSearch() {
+        return playoutsInLastSearch;
+    }
+
+    @Override
+    public Choice getBestChoice() {
+        playoutsInLastSearch = 0;
+        getSearchStatistics().beginDecision();
+        try {
+            return getMostVisitedChoice();
+        } finally {
+            getSearchStatistics().iterationsFinished(playoutsInLastSearch);
+            getSearchStatistics().endDecision();
+        }
+    }
+
+    private Choice getMostVisitedChoice() {
+        List<GameState> childStates = getChildStates();
+        Choice firstChoice = childStates.get(0).getChoiceTaken();
+
+        if (firstChoice.getAction() == Choice.Action.PICKED_UP)
+            return Choice.valueOf(Choice.Action.PICKED_UP, null);
+        if (childStates.size() == 1)
+            return firstChoice;
+
+        if (playoutBudget == 0 && timeBudgetMillis == 0)
+            throw new IllegalStateException("MCTSController needs a playout budget or a time budget");
+
+        long deadline = timeBudgetMillis == 0 ? 0 : System.nanoTime() + timeBudgetMillis * 1000000;
+        int[] visits = new int[NUMBER_OF_MOVES];
+        double[] totalRewards = new double[NUMBER_OF_MOVES];
+
+        playoutsInLastSearch = search(getGameState().getBoneState(), playoutBudget, deadline, visits, totalRewards);
+
+        // Choose the most visited move (or, of those, the one with the highest total reward).
+        int bestMove = 0;
+        for (int move = 1; move < NUMBER_OF_MOVES; ++move)
+            if (visits[move] > visits[bestMove]
+                    || (visits[move] == visits[bestMove] && totalRewards[move] > totalRewards[bestMove]))
+                bestMove = move;
+
+        return MoveList.toChoice(bestMove);
+    }
+
+    /**
+     * Searches from the given BoneState (where it's my turn), adding the visits and total reward of each
+     * of my moves to the given arrays (indexed by move).
+     *
+     * @param boneState the BoneState to search from.
+     * @param playoutBudget the number of playouts to do, or 0 for no limit.
+     * @param deadline the System.nanoTime() to stop by, or 0 for no limit.
+     * @param visits the number of playouts each move was made in, to add to.
+     * @param totalRewards the total of my rewards from the playouts each move was made in, to add to.
+     * @return the number of playouts done.
+     */
+    protected int search(BoneState boneState, int playoutBudget, long deadline, int[] visits, double[] totalRewards) {
+        return searchTree(boneState, random, playoutBudget, deadline, visits, totalRewards);
+    }
+
+    /**
+     * Builds a tree of playouts from the given BoneState using the given Random (which is the only state
+     * used, so several trees can be searched in parallel), then adds the root's statistics to the given
+     * arrays as in search().  The nodes added to the tree are counted in the SearchStatistics.
+     *
+     * @return the number of playouts done.
+     */
+    protected int searchTree(BoneState boneState, Random random, int playoutBudget, long deadline,
+                             int[] visits, double[] totalRewards) {
+        Node root = new Node(-1, false);
+        MoveList moves = new MoveList();
+        int playouts = 0;
+        int nodesExpanded = 0, maxDepth = 0;
+
+        do {
+            Determinization determinization = new Determinization(boneState, random);
+            double reward = playOut(root, determinization, moves, random);
+            int depth = 0;
+            for (Node node = root; node != null; node = node.selectedChild, ++depth) {
+                // The playout's last node in the tree was added by this playout (unless the game ended first).
+                if (node.visits == 0 && node != root) {
+                    ++nodesExpanded;
+                    maxDepth = Math.max(maxDepth, depth);
+                }
+
+                node.visits += 1;
+                node.totalReward += node.isMyMove ? reward : 1 - reward;
+            }
+            ++playouts;
+        } while ((playoutBudget == 0 || playouts < playoutBudget)
+                && (deadline == 0 || System.nanoTime() - deadline < 0));
+
+        // Recorded once per tree, since several trees may be searched at once.
+        getSearchStatistics().nodesExpanded(nodesExpanded, maxDepth);
+
+        for (Node child : root.children) {
+            visits[child.move] += child.visits;
+            totalRewards[child.move] += child.totalReward;
+        }
+
+        return playouts;
+    }
+
+    /**
+     * Selects moves down the tree with UCT (recording them in each node's selectedChild), expands one new
+     * move, then plays out the rest of the game.  The given MoveList is reused for each move.
+     *
+     * @return my reward from the playout.
+     */
+    private double playOut(Node root, Determinization determinization, MoveList moves, Random random) {
+        Node node = root;
+
+        while (!determinization.isGameOver()) {
+            determinization.getValidMoves(moves);
+            Node child = selectChild(node, moves, determinization.isMyTurn(), random);
+            node.selectedChild = child;
+            determinization.play(child.move);
+            node = child;
+
+            if (child.visits == 0)
+                break;
+        }
+
+        node.selectedChild = null;
+
+        while (!determinization.isGameOver()) {
+            determinization.getValidMoves(moves);
+            determinization.play(choosePlayoutMove(moves, random));
+        }
+
+        return determinization.getMyReward();
+    }
+
+    /**
+     * Selects a child for the given valid moves: a move not yet in the tree if there is one, otherwise the
+     * child with the highest upper confidence bound.  Every valid child's availability is counted.
+     */
+    private Node selectChild(Node node, MoveList moves, boolean isMyTurn, Random random) {
+        List<Node> untried = null;
+        Node bestChild = null;
+        double bestBound = Double.NEGATIVE_INFINITY;
+
+        for (int i = 0; i < moves.size(); ++i) {
+            Node child = node.getChild(moves.get(i));
+
+            if (child == null) {
+                if (untried == null)
+                    untried = new ArrayList<Node>(moves.size());
+                untried.add(new Node(moves.get(i), isMyTurn));
+                continue;
+            }
+
+            child.availability += 1;
+            double bound = child.totalReward / child.visits
+                    + explorationConstant * Math.sqrt(Math.log(child.availability) / child.visits);
+
+            if (bound > bestBound) {
+                bestBound = bound;
+                bestChild = child;
+            }
+        }
+
+        if (untried != null) {
+            Node newChild = untried.get(random.nextInt(untried.size()));
+            newChild.availability = 1;
+            node.children.add(newChild);
+            return newChild;
+        }
+
+        return bestChild;
+    }
+
+    private int choosePlayoutMove(MoveList moves, Random random) {
+        if (!heuristicPlayouts || !MoveList.getAction(moves.get(0)).isPlacement())
+            return moves.get(random.nextInt(moves.size()));
+
+        int heaviestMove = moves.get(0);
+        for (int i = 1; i < moves.size(); ++i)
+            if (getWeight(moves.get(i)) > getWeight(heaviestMove))
+                heaviestMove = moves.get(i);
+
+        return heaviestMove;
+    }
+
+    private static int getWeight(int placement) {
+        return Bones.getBone(MoveList.getBoneIndex(placement)).weight();
+    }
+
+    /**
+     * A move in the search tree, with the statistics of the playouts it was made in (from the point of view
+     * of the player who made it).
+     */
+    private static class Node {
+        private final int move;
+        private final boolean isMyMove;
+        private final List<Node> children = new ArrayList<Node>();
+        private Node selectedChild;
+        private int visits;
+        private int availability;
+        private double totalReward;
+
+        private Node(int move, boolean isMyMove) {
+            this.move = move;
+            this.isMyMove = isMyMove;
+        }
+
+        private Node getChild(int move) {
+            for (Node child : children)
+                if (child.move == move)
+                    return child;
+            return null;
+        }
+    }
+
+    /**
+     * A concrete game consistent with what I know: the hands and boneyard are masks over Bones.indexOf, and
+     * moves are encoded as in MoveList.
+     */
+    private static class Determinization {
+        private final int[] hands = new int[2];
+        private final int[] boneyard;
+        private int sizeOfBoneyard;
+        private int layoutLeft, layoutRight;
+        private int player = 0;     // 0 is me, 1 is the opponent
+        private int consecutivePasses = 0;
+        private boolean gameOver = false;
+
+        private Determinization(BoneState boneState, Random random) {
+            hands[0] = Bones.toMask(boneState.getMyBones());
+            layoutLeft = boneState.getLayoutLeft();
+            layoutRight = boneState.getLayoutRight();
+
+            List<ImmutableBone> unknownBones = boneState.getUnknownBones();
+            int remaining = unknownBones.size();
+            int[] boneIndices = new int[remaining];
+            double[] weights = new double[remaining];
+            double sumOfWeights = 0;
+            for (int i = 0; i < remaining; ++i) {
+                boneIndices[i] = Bones.indexOf(unknownBones.get(i));
+                weights[i] = boneState.getProbThatOpponentHasBone(unknownBones.get(i));
+                sumOfWeights += weights[i];
+            }
+
+            // Deal the opponent's hand, each draw weighted by the probability they have the bone.  Dealt
+            // bones are swapped out of the first 'remaining' elements.
+            for (int dealt = 0; dealt < boneState.getSizeOfOpponentHand(); ++dealt) {
+                int chosen = remaining - 1;
+
+                if (sumOfWeights > 0) {
+                    double target = random.nextDouble() * sumOfWeights;
+                    for (int i = 0; i < remaining; ++i) {
+                        target -= weights[i];
+                        if (target < 0 && weights[i] > 0) {
+                            chosen = i;
+                            break;
+                        }
+                    }
+                } else {
+                    // Every remaining bone is thought to be in the boneyard, so pick any of them.
+                    chosen = random.nextInt(remaining);
+                }
+
+                hands[1] |= 1 << boneIndices[chosen];
+                sumOfWeights -= weights[chosen];
+                --remaining;
+                boneIndices[chosen] = boneIndices[remaining];
+                weights[chosen] = weights[remaining];
+            }
+
+            // The rest are shuffled into the boneyard.
+            boneyard = new int[remaining];
+            for (int i = 0; i < remaining; ++i) {
+                int j = random.nextInt(i + 1);
+                boneyard[i] = boneyard[j];
+                boneyard[j] = boneIndices[i];
+            }
+            sizeOfBoneyard = remaining;
+        }
+
+        private boolean isGameOver() {
+            return gameOver;
+        }
+
+        private boolean isMyTurn() {
+            return player == 0;
+        }
+
+        /**
+         * Puts the current player's valid moves into the given list (replacing whatever it held).
+         */
+        private void getValidMoves(MoveList moves) {
+            moves.clear();
+            moves.addPlacements(hands[player], layoutLeft, layoutRight);
+
+            if (moves.isEmpty())
+                moves.add(sizeOfBoneyard > 0 ? Choice.Action.PICKED_UP : Choice.Action.PASS, -1);
+        }
+
+        private void play(int move) {
+            if (move == PICK_UP) {
+                hands[player] |= 1 << boneyard[--sizeOfBoneyard];
+                consecutivePasses = 0;
+                return;     // and it's still the same player's turn
+            }
+
+            if (move == PASS) {
+                if (++consecutivePasses == 2)
+                    gameOver = true;
+            } else {
+                int boneIndex = MoveList.getBoneIndex(move);
+                ImmutableBone bone = Bones.getBone(boneIndex);
+                hands[player] &= ~(1 << boneIndex);
+                consecutivePasses = 0;
+
+                if (layoutLeft == -1) {
+                    layoutLeft = bone.left();
+                    layoutRight = bone.right();
+                } else if (MoveList.getAction(move) == Choice.Action.PLACED_RIGHT) {
+                    layoutRight = bone.left() == layoutRight ? bone.right() : bone.left();
+                } else {
+                    layoutLeft = bone.left() == layoutLeft ? bone.right() : bone.left();
+                }
+
+                if (hands[player] == 0)
+                    gameOver = true;
+            }
+
+            player = 1 - player;
+        }
+
+        /**
+         * Gets my reward at the end of the game: 1 if I won, 0 if I lost, and 0.5 for a draw.  If neither
+         * player placed all their bones, the lightest hand wins.
+         */
+        private double getMyReward() {
+            int myWeight = getWeight(hands[0]);
+            int opponentWeight = getWeight(hands[1]);
+
+            if (hands[0] == 0 || myWeight < opponentWeight)
+                return 1;
+            if (hands[1] == 0 || myWeight > opponentWeight)
+                return 0;
+            return 0.5;
+        }
+
+        private static int getWeight(int hand) {
+            int weight = 0;
+            for (int bones = hand; bones != 0; bones &= bones - 1)
+                weight += Bones.getBone(Integer.numberOfTrailingZeros(bones)).weight();
+            return weight;
+        }
+    }
+}
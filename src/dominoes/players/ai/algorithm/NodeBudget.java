@@ -0,0 +1,175 @@
+package dominoes.players.ai.algorithm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of states in a GameStateImpl tree.  When enforce() finds the tree has grown past the
+ * maximum size, the subtrees which were least recently visited (ie. had getChildStates called anywhere in
+ * them) are collapsed until the tree is back to three quarters of the maximum.  A collapsed state keeps
+ * its cached best route, and its children are created again if they are needed.
+ *
+ * A NodeBudget belongs to one tree, and enforce() mustn't be called during a search (since it changes
+ * the lists of child states being iterated over).  The clock and the count of states are atomic, since
+ * states are visited and expanded from several threads at once by RouteSelectorForkJoin.
+ */
+public class NodeBudget {
+    private final int maximumSize;
+    private GameStateImpl root;
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger size = new AtomicInteger();
+    private long collapses;
+
+    /**
+     * Creates a NodeBudget for a tree of at most the given number of states.
+     *
+     * @param maximumSize the maximum number of states in the tree.
+     */
+    public NodeBudget(int maximumSize) {
+        if (maximumSize < 1)
+            throw new IllegalArgumentException("maximumSize must be at least 1");
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Makes the given state the root of the tree, and counts the states beneath it (since the rest of the
+     * old tree has been discarded).
+     *
+     * @param root the new root.
+     */
+    void setRoot(GameStateImpl root) {
+        this.root = root;
+        size.set(1 + countDescendants(root));
+    }
+
+    /**
+     * Advances the clock used to record when each state was visited.
+     *
+     * @return the new time.
+     */
+    long tick() {
+        return clock.incrementAndGet();
+    }
+
+    /**
+     * Records that the given number of states were added to the tree.
+     *
+     * @param numberOfStates the number of states added.
+     */
+    void addStates(int numberOfStates) {
+        size.addAndGet(numberOfStates);
+    }
+
+    /**
+     * Collapses the least recently visited subtrees if the tree has grown past the maximum size.
+     */
+    public void enforce() {
+        // Only walk the tree (to find the subtrees to collapse) once it's too big.
+        if (size.get() <= maximumSize || root == null)
+            return;
+
+        List<Subtree> subtrees = new ArrayList<Subtree>();
+        size.set(1 + countSubtrees(root, subtrees));
+        if (size.get() <= maximumSize)
+            return;
+
+        Collections.sort(subtrees, new Comparator<Subtree>() {
+            @Override
+            public int compare(Subtree o1, Subtree o2) {
+                return Long.compare(o1.lastVisited, o2.lastVisited);
+            }
+        });
+
+        int targetSize = maximumSize - maximumSize / 4;
+
+        for (Subtree subtree : subtrees) {
+            if (size.get() <= targetSize)
+                break;
+
+            if (isWithinCollapsedSubtree(subtree.state))
+                continue;
+
+            subtree.state.collapse();
+            size.addAndGet(-subtree.size);
+            ++collapses;
+        }
+    }
+
+    /**
+     * Adds the expanded descendants of the given state to the given list of subtrees.
+     *
+     * @return the number of descendants of the given state.
+     */
+    private static int countSubtrees(GameStateImpl state, List<Subtree> subtrees) {
+        int descendants = 0;
+        long lastVisited = state.getLastVisited();
+
+        for (GameState childState : state.getExpandedChildStates()) {
+            GameStateImpl child = (GameStateImpl) childState;
+            int childDescendants = countSubtrees(child, subtrees);
+            descendants += 1 + childDescendants;
+
+            if (childDescendants > 0) {
+                Subtree childSubtree = subtrees.get(subtrees.size() - 1);
+                lastVisited = Math.max(lastVisited, childSubtree.lastVisited);
+            } else {
+                lastVisited = Math.max(lastVisited, child.getLastVisited());
+            }
+        }
+
+        // The root can't be collapsed.
+        if (descendants > 0 && state.getParent() != null)
+            subtrees.add(new Subtree(state, descendants, lastVisited));
+
+        return descendants;
+    }
+
+    private static int countDescendants(GameStateImpl state) {
+        int descendants = 0;
+        for (GameState childState : state.getExpandedChildStates())
+            descendants += 1 + countDescendants((GameStateImpl) childState);
+        return descendants;
+    }
+
+    private boolean isWithinCollapsedSubtree(GameStateImpl state) {
+        for (GameState ancestor = state.getParent(); ancestor != null && ancestor != root; ancestor = ancestor.getParent())
+            if (((GameStateImpl) ancestor).getExpandedChildStates().isEmpty())
+                return true;
+        return false;
+    }
+
+    /**
+     * Gets the number of states in the tree.  The tree is counted whenever it is re-rooted, and states
+     * created or collapsed since are added or taken away.
+     *
+     * @return the size of the tree.
+     */
+    public int getSize() {
+        return size.get();
+    }
+
+    /**
+     * Gets the number of subtrees which have been collapsed.
+     *
+     * @return the number of collapses.
+     */
+    public long getCollapses() {
+        return collapses;
+    }
+
+    private static class Subtree {
+        private final GameStateImpl state;
+        private final int size;
+        private final long lastVisited;
+
+        private Subtree(GameStateImpl state, int size, long lastVisited) {
+            this.state = state;
+            this.size = size;
+            this.lastVisited = lastVisited;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package dominoes.players.ai.algorithm;
+
+import dominoes.players.ai.algorithm.helper.BoneState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * MCTSController which searches with root parallelism: each worker thread builds its own tree from its own
+ * determinizations (with its own Random, seeded from this controller's), and the visits and rewards of the
+ * moves at the roots are added together to choose the move.
+ *
+ * The trees share nothing, so the threads never synchronise during the search.  The playout budget is
+ * shared between the threads, and each thread stops at the same deadline if there's a time budget.
+ *
+ * By default every ParallelMCTSController shares one pool with a thread per processor, so running several
+ * AIs at once (eg. in AutomatedTable's parallel tournaments) doesn't start a pool per AI.  If there are more
+ * trees than threads in the pool, the extra trees wait their turn.  The default number of trees can be set
+ * with the dominoes.ai.mctsThreads system property, eg. -Ddominoes.ai.mctsThreads=4
+ */
+public class ParallelMCTSController extends MCTSController {
+    public static final String THREADS_PROPERTY = "dominoes.ai.mctsThreads";
+
+    private static final ExecutorService SHARED_EXECUTOR = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ParallelMCTSController worker");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private final Random random;
+    private final int threads;
+    private final ExecutorService executor;
+
+    /**
+     * Creates a ParallelMCTSController using the shared pool, with as many trees as the THREADS_PROPERTY
+     * system property says (or, if it isn't set, a tree for each available processor).
+     */
+    public ParallelMCTSController() {
+        this(Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors()), new Random());
+    }
+
+    /**
+     * Creates a ParallelMCTSController using the shared pool.
+     *
+     * @param threads the number of trees to search in parallel.
+     * @param random the source of the seeds for each tree's Random.
+     */
+    public ParallelMCTSController(int threads, Random random) {
+        this(threads, random, SHARED_EXECUTOR);
+    }
+
+    /**
+     * Creates a ParallelMCTSController.
+     *
+     * @param threads the number of trees to search in parallel.
+     * @param random the source of the seeds for each tree's Random.
+     * @param executor the pool to search the trees in, which the caller is responsible for shutting down.
+     */
+    public ParallelMCTSController(int threads, Random random, ExecutorService executor) {
+        super(random);
+
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be at least 1");
+        if (executor == null)
+            throw new IllegalArgumentException("executor can't be null");
+
+        this.random = random;
+        this.threads = threads;
+        this.executor = executor;
+    }
+
+    /**
+     * Gets the number of trees searched in parallel.
+     *
+     * @return the number of worker threads.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    @Override
+    protected int search(final BoneState boneState, int playoutBudget, final long deadline,
+                         int[] visits, double[] totalRewards) {
+        List<Callable<Worker>> workers = new ArrayList<Callable<Worker>>(threads);
+
+        for (int i = 0; i < threads; ++i) {
+            // Share out the playouts, giving any remainder to the first few workers.
+            int workerPlayoutBudget = playoutBudget == 0 ? 0 : playoutBudget / threads + (i < playoutBudget % threads ? 1 : 0);
+            if (playoutBudget != 0 && workerPlayoutBudget == 0)
+                break;
+
+            workers.add(new Worker(boneState, new Random(random.nextLong()), workerPlayoutBudget, deadline));
+        }
+
+        int playouts = 0;
+
+        try {
+            for (Future<Worker> future : executor.invokeAll(workers)) {
+                Worker worker = future.get();
+                playouts += worker.playouts;
+
+                for (int move = 0; move < NUMBER_OF_MOVES; ++move) {
+                    visits[move] += worker.visits[move];
+                    totalRewards[move] += worker.totalRewards[move];
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while searching", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Search failed in a worker thread", e.getCause());
+        }
+
+        return playouts;
+    }
+
+    /**
+     * Searches one tree, keeping the statistics of its root separate until they're merged.
+     */
+    private class Worker implements Callable<Worker> {
+        private final BoneState boneState;
+        private final Random random;
+        private final int playoutBudget;
+        private final long deadline;
+        private final int[] visits = new int[NUMBER_OF_MOVES];
+        private final double[] totalRewards = new double[NUMBER_OF_MOVES];
+        private int playouts;
+
+        private Worker(BoneState boneState, Random random, int playoutBudget, long deadline) {
+            this.boneState = boneState;
+            this.random = random;
+            this.playoutBudget = playoutBudget;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public Worker call() {
+            playouts = searchTree(boneState, random, playoutBudget, deadline, visits, totalRewards);
+            return this;
+        }
+    }
+}
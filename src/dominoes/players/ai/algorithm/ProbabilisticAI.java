@@ -3,12 +3,19 @@ package dominoes.players.ai.algorithm;
 import dominoes.players.ai.algorithm.components.HandEvaluator;
 import dominoes.players.ai.algorithm.components.PlyManager;
 import dominoes.players.ai.algorithm.components.RouteSelector;
+import dominoes.players.ai.algorithm.components.RouteSelectorTransposition;
 import dominoes.players.ai.algorithm.components.StateEnumerator;
 import dominoes.players.ai.algorithm.helper.BoneState;
+import dominoes.players.ai.algorithm.helper.BoneStateBitboard;
+import dominoes.players.ai.algorithm.helper.BoneStateImpl;
 import dominoes.players.ai.algorithm.helper.Choice;
 import dominoes.players.ai.algorithm.helper.ImmutableBone;
 import dominoes.players.ai.algorithm.helper.Route;
+import dominoes.players.ai.algorithm.helper.TranspositionTable;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -20,11 +27,135 @@ public class ProbabilisticAI implements AIController {
     private final StateEnumerator stateEnumerator;
     private final HandEvaluator handEvaluator;
     private int stableIterationRequirement = 50;
+    private boolean useBitboardBoneState = false;
+    private GameStateArena arena;
+    private int maximumTreeSize = DEFAULT_MAXIMUM_TREE_SIZE;
+    private NodeBudget nodeBudget;
+    private EndgameSolver endgameSolver = new EndgameSolver();
+    private final SearchStatistics searchStatistics = new SearchStatistics();
+    private long timeBudgetMillis = 0;
+    private boolean pondering = false;
+    private Ponderer ponderer;
+    private PlyDeepening ponderedDeepening;
+
+    private static final int MAX_ITERATIONS = 300;
+    private static final int PONDER_REPLIES = 3;
+    private static final int DEFAULT_MAXIMUM_TREE_SIZE = 1 << 20;
 
     public void setStableIterationRequirement(int stableIterationRequirement) {
         this.stableIterationRequirement = stableIterationRequirement;
     }
 
+    /**
+     * Sets whether to use BoneStateBitboard (rather than BoneStateImpl) for the bone states in the
+     * GameState tree.  Takes effect from the next call to setInitialState.
+     *
+     * @param useBitboardBoneState true to use BoneStateBitboard.
+     */
+    public void setUseBitboardBoneState(boolean useBitboardBoneState) {
+        this.useBitboardBoneState = useBitboardBoneState;
+    }
+
+    /**
+     * Sets whether to recycle the GameStates discarded after each choice (and at the end of each game) with
+     * a GameStateArena, rather than leaving them to the garbage collector.  Takes effect from the next call
+     * to setInitialState.
+     *
+     * @param useGameStateArena true to recycle GameStates.
+     */
+    public void setUseGameStateArena(boolean useGameStateArena) {
+        if (!useGameStateArena)
+            arena = null;
+        else if (arena == null)
+            arena = new GameStateArena();
+    }
+
+    /**
+     * Gets the GameStateArena used to recycle GameStates (eg. to read its counters).
+     *
+     * @return the GameStateArena, or null if GameStates aren't recycled.
+     */
+    public GameStateArena getGameStateArena() {
+        return arena;
+    }
+
+    /**
+     * Sets the maximum number of GameStates in the tree.  Between iterations, if the tree has grown past
+     * this, the least recently visited subtrees are discarded (see NodeBudget).  Takes effect from the next
+     * call to setInitialState.
+     *
+     * @param maximumTreeSize the maximum number of GameStates in the tree, or 0 for no limit.
+     */
+    public void setMaximumTreeSize(int maximumTreeSize) {
+        if (maximumTreeSize < 0)
+            throw new IllegalArgumentException("maximumTreeSize must not be negative");
+        this.maximumTreeSize = maximumTreeSize;
+    }
+
+    /**
+     * Gets the NodeBudget limiting the size of the current tree (eg. to read its counters).
+     *
+     * @return the NodeBudget, or null if the size of the tree isn't limited.
+     */
+    public NodeBudget getNodeBudget() {
+        return nodeBudget;
+    }
+
+    /**
+     * Sets whether to use an EndgameSolver for my choices once the boneyard is empty, rather than
+     * increasing the ply of the tree.
+     *
+     * @param useEndgameSolver true to solve endgames exactly.
+     */
+    public void setUseEndgameSolver(boolean useEndgameSolver) {
+        if (!useEndgameSolver)
+            endgameSolver = null;
+        else if (endgameSolver == null)
+            endgameSolver = new EndgameSolver();
+    }
+
+    /**
+     * Gets the EndgameSolver used once the boneyard is empty (eg. to read the last endgame's score).
+     *
+     * @return the EndgameSolver, or null if endgames aren't solved.
+     */
+    public EndgameSolver getEndgameSolver() {
+        return endgameSolver;
+    }
+
+    @Override
+    public SearchStatistics getSearchStatistics() {
+        return searchStatistics;
+    }
+
+    @Override
+    public void setTimeBudget(long timeBudgetMillis) {
+        if (timeBudgetMillis < 0)
+            throw new IllegalArgumentException("timeBudgetMillis must not be negative");
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    /**
+     * Gets the time each call to getBestChoice may take.
+     *
+     * @return the time budget per choice in milliseconds, or 0 for no limit.
+     */
+    public long getTimeBudget() {
+        return timeBudgetMillis;
+    }
+
+    /**
+     * Sets whether to ponder (ie. keep increasing the ply of the opponent's most likely replies in a background
+     * thread) during the opponent's turn.  The work done under the reply the opponent actually makes is kept.
+     *
+     * @param pondering true to ponder during the opponent's turn.
+     */
+    public void setPondering(boolean pondering) {
+        this.pondering = pondering;
+        if (!pondering)
+            stopPondering();
+    }
+
     private GameState currentState;
 
     public ProbabilisticAI(PlyManager plyManager, RouteSelector routeSelector,
@@ -38,74 +169,320 @@ public class ProbabilisticAI implements AIController {
 
     @Override
     public void setInitialState(List<ImmutableBone> myBones, boolean isMyTurn, ImmutableBone... initialLayout) {
+        stopPondering();
+        ponderedDeepening = null;
+
+        // The last game's tree won't be used again.
+        if (currentState != null && arena != null)
+            arena.release(currentState);
         currentState = null;
-        System.gc();
-        currentState = new GameStateImpl(stateEnumerator, handEvaluator,
-                plyManager.getInitialPly(), myBones, isMyTurn, initialLayout);
+
+        BoneState initialBoneState;
+        if (useBitboardBoneState)
+            initialBoneState = new BoneStateBitboard(myBones, initialLayout);
+        else
+            initialBoneState = new BoneStateImpl(myBones, initialLayout);
+
+        nodeBudget = maximumTreeSize == 0 ? null : new NodeBudget(maximumTreeSize);
+        currentState = new GameStateImpl(stateEnumerator, handEvaluator, plyManager.getInitialPly(),
+                initialBoneState, isMyTurn, arena, nodeBudget, searchStatistics);
+
+        startPondering();
     }
 
     /**
      * Gets the best possible choice from the current state.  This is where the ply of good states is incremented.
      *
+     * If there is a time budget, this stops increasing the ply once it runs out and returns the best choice
+     * found so far (so may overrun by one iteration).
+     *
      * @return the best possible choice from the current state.
      */
     private Choice getBestChoiceAfterIncreasingPly() {
-        List<Route> bestRoutes;
-        int[] plyIncreases;
-        int i;
-
-        int n = 0;
-        Choice bestChoice = null;
-        int iterationsBestChoiceHasBeenBestFor = 0;
-
-        do {
-            bestRoutes = routeSelector.getBestRoutes(currentState);
-
-            if (bestRoutes.isEmpty())
-                return null;
-            else if (bestRoutes.size() == 1)
-                return bestRoutes.get(0).getEarliestChoice();
-
-            double[] bestRouteValues = new double[bestRoutes.size()];
-            i = 0;
-            for (Route route : bestRoutes) {
-                bestRouteValues[i++] = route.getValue();
+        // Carry on from the ponderer's search of this state, if it got this far.
+        PlyDeepening deepening = ponderedDeepening;
+        ponderedDeepening = null;
+        if (deepening == null || deepening.state != currentState)
+            deepening = new PlyDeepening(currentState);
+
+        long deadline = System.nanoTime() + timeBudgetMillis * 1000000;
+
+        while (!deepening.isFinished()) {
+            deepening.iterate();
+
+            if (timeBudgetMillis > 0 && System.nanoTime() - deadline >= 0)
+                break;
+        }
+
+        return deepening.bestChoice;
+    }
+
+    /**
+     * The iterative process of getting the best routes from a state and increasing their ply, until the best
+     * choice has been stable for stableIterationRequirement iterations (or the ply can't be increased, or
+     * MAX_ITERATIONS is reached).  Each call to iterate() does one iteration, so the process can be paused
+     * (eg. to ponder several states in turn).
+     */
+    private class PlyDeepening {
+        private final GameState state;
+        private Choice bestChoice = null;
+        private int iterationsBestChoiceHasBeenBestFor = 0;
+        private int n = 0;
+        private boolean finished = false;
+        private boolean stable = false;
+        private int lastRoutes = 0;
+        private int lastPlyIncrease = 0;
+
+        private PlyDeepening(GameState state) {
+            this.state = state;
+        }
+
+        private boolean isFinished() {
+            return finished;
+        }
+
+        private void iterate() {
+            AIEventListener listener = AIEvents.getListener();
+            if (listener == null) {
+                selectRoutesAndIncreasePly();
+                return;
             }
 
-            plyIncreases = plyManager.getPlyIncreases(bestRouteValues);
+            listener.iterationStarted(ProbabilisticAI.this);
+            selectRoutesAndIncreasePly();
+            listener.iterationFinished(ProbabilisticAI.this, n, lastRoutes, lastPlyIncrease, getLiveNodes());
+        }
 
-            i = 0;
-            for (Route route : bestRoutes) {
-                GameState finalState = route.getFinalState();
-                finalState.increasePly(plyIncreases[i++]);
+        private void selectRoutesAndIncreasePly() {
+            if (nodeBudget != null)
+                nodeBudget.enforce();
+
+            long routeSelectionStart = System.nanoTime();
+            List<Route> bestRoutes = routeSelector.getBestRoutes(state);
+            long routeSelectionNanos = System.nanoTime() - routeSelectionStart;
+            lastRoutes = bestRoutes.size();
+            lastPlyIncrease = 0;
+
+            // If I need to pick up, the best choice is null.
+            if (bestRoutes.isEmpty()) {
+                bestChoice = null;
+                finished = true;
+                searchStatistics.iterationFinished(routeSelectionNanos, getLiveNodes(), false);
+                return;
+            } else if (bestRoutes.size() == 1) {
+                bestChoice = bestRoutes.get(0).getEarliestChoice();
+                finished = true;
+                searchStatistics.iterationFinished(routeSelectionNanos, getLiveNodes(), false);
+                return;
             }
 
+            int[] plyIncreases = increasePlyOfRoutes(bestRoutes);
+            lastPlyIncrease = plyIncreases[0];
+
             Choice newBestChoice = bestRoutes.get(0).getEarliestChoice();
 
             if (bestChoice != newBestChoice) {
                 iterationsBestChoiceHasBeenBestFor = 0;
                 bestChoice = newBestChoice;
             } else if (bestChoice != null && iterationsBestChoiceHasBeenBestFor == stableIterationRequirement) {
-                break;
+                finished = true;
+                stable = true;
             } else {
                 ++iterationsBestChoiceHasBeenBestFor;
             }
 
-            if (plyIncreases[0] == 0) {
-                break;
+            if (plyIncreases[0] == 0 || n++ >= MAX_ITERATIONS)
+                finished = true;
+
+            searchStatistics.iterationFinished(routeSelectionNanos, getLiveNodes(), stable);
+        }
+    }
+
+    private int getLiveNodes() {
+        return nodeBudget == null ? 0 : nodeBudget.getSize();
+    }
+
+    /**
+     * Gets the route selector's TranspositionTable, if it has one.
+     *
+     * @return the TranspositionTable, or null if the route selector doesn't use one.
+     */
+    private TranspositionTable getTranspositionTable() {
+        if (routeSelector instanceof RouteSelectorTransposition)
+            return ((RouteSelectorTransposition) routeSelector).getTranspositionTable();
+        return null;
+    }
+
+    /**
+     * Increases the ply of the final state of each route, as the PlyManager decides.
+     *
+     * @param bestRoutes the best routes from a state, from best to worst.
+     * @return the ply increase given to each route.
+     */
+    private int[] increasePlyOfRoutes(List<Route> bestRoutes) {
+        double[] bestRouteValues = new double[bestRoutes.size()];
+        int i = 0;
+        for (Route route : bestRoutes) {
+            bestRouteValues[i++] = route.getValue();
+        }
+
+        int[] plyIncreases = plyManager.getPlyIncreases(bestRouteValues);
+
+        i = 0;
+        for (Route route : bestRoutes) {
+            GameState finalState = route.getFinalState();
+            finalState.increasePly(plyIncreases[i++]);
+        }
+
+        return plyIncreases;
+    }
+
+    /**
+     * Checks whether my choices from the current state will be made by the EndgameSolver.
+     *
+     * @return true iff endgames are solved and the boneyard is empty.
+     */
+    private boolean isSolvableEndgame() {
+        return endgameSolver != null && EndgameSolver.isSolvable(currentState.getBoneState());
+    }
+
+    /**
+     * Starts pondering the opponent's most likely replies, if pondering is on and it's the opponent's turn.
+     */
+    private void startPondering() {
+        if (!pondering || currentState.isMyTurn() || currentState.getStatus() == GameState.Status.GAME_OVER
+                || isSolvableEndgame())
+            return;
+
+        ponderer = new Ponderer(getLikelyReplies(currentState));
+        Thread thread = new Thread(ponderer, "ProbabilisticAI ponderer");
+        thread.setDaemon(true);
+        ponderer.thread = thread;
+        thread.start();
+    }
+
+    /**
+     * Stops pondering (if pondering), and waits for the ponderer to finish its current iteration so the
+     * tree isn't changed by two threads at once.
+     *
+     * @return the ponderer that was stopped, or null if there wasn't one.
+     */
+    private Ponderer stopPondering() {
+        if (ponderer == null)
+            return null;
+
+        ponderer.cancelled = true;
+        boolean interrupted = false;
+
+        while (ponderer.thread.isAlive()) {
+            try {
+                ponderer.thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
             }
+        }
+
+        Ponderer stoppedPonderer = ponderer;
+        ponderer = null;
+        if (interrupted)
+            Thread.currentThread().interrupt();
+
+        return stoppedPonderer;
+    }
+
+    /**
+     * Gets the opponent's replies from the given state which lead to my turn, most likely first.  A placement
+     * is as likely as the opponent having the bone, and a pass as likely as them having none of those bones.
+     */
+    private static List<GameState> getLikelyReplies(GameState state) {
+        final BoneState boneState = state.getBoneState();
+        List<GameState> replies = new ArrayList<GameState>();
+        double probOfNoPlacement = 1;
+
+        for (GameState childState : state.getChildStates()) {
+            if (!childState.isMyTurn())
+                continue;
+
+            replies.add(childState);
+            Choice choice = childState.getChoiceTaken();
+            if (choice.getAction().isPlacement())
+                probOfNoPlacement *= 1 - boneState.getProbThatOpponentHasBone(choice.getBone());
+        }
+
+        final double probOfPass = probOfNoPlacement;
+        Collections.sort(replies, new Comparator<GameState>() {
+            @Override
+            public int compare(GameState o1, GameState o2) {
+                return Double.compare(getProb(o2), getProb(o1));
+            }
+
+            private double getProb(GameState reply) {
+                Choice choice = reply.getChoiceTaken();
+                if (choice.getAction().isPlacement())
+                    return boneState.getProbThatOpponentHasBone(choice.getBone());
+                else
+                    return probOfPass;
+            }
+        });
+
+        return replies.subList(0, Math.min(PONDER_REPLIES, replies.size()));
+    }
+
+    /**
+     * Runs a PlyDeepening for each of the given replies, an iteration of each in turn, until cancelled or until
+     * they've all finished.
+     */
+    private class Ponderer implements Runnable {
+        private final List<PlyDeepening> deepenings = new ArrayList<PlyDeepening>();
+        private volatile boolean cancelled = false;
+        private Thread thread;
+
+        private Ponderer(List<GameState> replies) {
+            for (GameState reply : replies)
+                deepenings.add(new PlyDeepening(reply));
+        }
 
+        @Override
+        public void run() {
+            boolean allFinished = false;
 
-        } while(n++ < 300);
+            while (!allFinished) {
+                allFinished = true;
+
+                for (PlyDeepening deepening : deepenings) {
+                    if (cancelled)
+                        return;
+
+                    if (!deepening.isFinished()) {
+                        deepening.iterate();
+                        allFinished = false;
+                    }
+                }
+            }
+        }
 
-//        System.out.println("Best route length is " + bestRoutes.get(0).length() + " with value " + bestRoutes.get(0).getValue());
-        return bestChoice;
+        /**
+         * Gets the PlyDeepening of the given state, if it was pondered.
+         *
+         * @param state the state (ie. the opponent's actual reply).
+         * @return the PlyDeepening of the given state, or null if it wasn't pondered.
+         */
+        private PlyDeepening getDeepening(GameState state) {
+            for (PlyDeepening deepening : deepenings)
+                if (deepening.state == state)
+                    return deepening;
+            return null;
+        }
     }
 
     @Override
     public void choose(Choice choice) {
+        Ponderer stoppedPonderer = stopPondering();
         GameState nextState = currentState.choose(choice);
 
+        // Keep the ponderer's search of the opponent's actual reply, so getBestChoice can carry on from it.
+        ponderedDeepening = (stoppedPonderer == null) ? null : stoppedPonderer.getDeepening(nextState);
+
         int sizeOfOpponentHand = nextState.getBoneState().getSizeOfOpponentHand();
         int sizeOfBoneyard = nextState.getBoneState().getSizeOfBoneyard();
         int sizeOfUnknownBones = nextState.getBoneState().getUnknownBones().size();
@@ -115,10 +492,43 @@ public class ProbabilisticAI implements AIController {
                     sizeOfOpponentHand, sizeOfBoneyard, sizeOfUnknownBones);
 
         currentState = nextState;
+        startPondering();
     }
 
     @Override
     public Choice getBestChoice() {
+        stopPondering();
+
+        AIEventListener listener = AIEvents.getListener();
+        if (listener != null)
+            listener.decisionStarted(this);
+
+        Choice choice = null;
+        searchStatistics.beginDecision();
+        TranspositionTable transpositionTable = getTranspositionTable();
+        if (transpositionTable != null)
+            transpositionTable.resetCounters();
+
+        try {
+            choice = getBestChoiceAndRecordStatistics();
+            return choice;
+        } finally {
+            if (transpositionTable != null)
+                searchStatistics.transpositionsFound(transpositionTable.getHits(),
+                        transpositionTable.getExpansionsSaved());
+            searchStatistics.endDecision();
+            if (listener != null)
+                listener.decisionFinished(this, choice, searchStatistics);
+        }
+    }
+
+    private Choice getBestChoiceAndRecordStatistics() {
+        if (currentState.isMyTurn() && isSolvableEndgame()) {
+            if (currentState.getChildStates().isEmpty())
+                throw new GameOverException();
+            return endgameSolver.getBestChoice(currentState.getBoneState());
+        }
+
         Choice bestChoice = getBestChoiceAfterIncreasingPly();
 
         // getBestChoiceAfterIncreasingPly is null if I need to pick up
@@ -126,7 +536,7 @@ public class ProbabilisticAI implements AIController {
             if (currentState.getStatus() == GameStateImpl.Status.GAME_OVER)
                 throw new GameOverException();
             else
-                return new Choice(Choice.Action.PICKED_UP, null);
+                return Choice.valueOf(Choice.Action.PICKED_UP, null);
         } else
             return bestChoice;
     }
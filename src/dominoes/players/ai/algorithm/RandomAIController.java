@@ -19,13 +19,22 @@ public class RandomAIController extends SimpleAIController {
 
     @Override
     public Choice getBestChoice() {
+        getSearchStatistics().beginDecision();
+        try {
+            return getRandomChoice();
+        } finally {
+            getSearchStatistics().endDecision();
+        }
+    }
+
+    private Choice getRandomChoice() {
         List<GameState> childStates = getChildStates();
 
         Collections.shuffle(childStates);
         Choice randomChoice = childStates.get(0).getChoiceTaken();
 
         if (randomChoice.getAction() == Choice.Action.PICKED_UP)
-            return new Choice(Choice.Action.PICKED_UP, null);
+            return Choice.valueOf(Choice.Action.PICKED_UP, null);
         else
             return randomChoice;
     }
@@ -0,0 +1,355 @@
+package dominoes.players.ai.algorithm;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics about an AIController's searches, for the most recent decision and in total.  In a ProbabilisticAI
+ * the GameStates of the AI's tree count the nodes they expand (which may happen on several threads at once), and
+ * the AI records the rest once per iteration.  Work done while pondering isn't counted.  An MCTSController counts
+ * the nodes added to its trees and its playouts (as iterations), and AIs which don't search only record their
+ * decisions.
+ *
+ * The statistics can be watched (eg. in JConsole) by registering them as an MBean.  Each SearchStatistics is
+ * registered under its own name, so two players with the same name can both be watched.
+ */
+public class SearchStatistics implements SearchStatisticsMBean {
+    private static final String OBJECT_NAME_PREFIX = "dominoes.players.ai:type=SearchStatistics,name=";
+    private static final AtomicInteger instances = new AtomicInteger();
+
+    private final int id = instances.incrementAndGet();
+
+    // The decision in progress
+    private final AtomicLong nodesExpanded = new AtomicLong();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private long decisionStartNanos;
+    private long routeSelectionNanos;
+    private int iterations;
+    private int peakLiveNodes;
+    private boolean choiceStable;
+    private long transpositionHits, expansionsSaved;
+
+    // The last decision, and totals over every decision
+    private volatile long decisions;
+    private volatile long lastNodesExpanded, totalNodesExpanded;
+    private volatile int lastPeakLiveNodes, overallPeakLiveNodes;
+    private volatile int lastMaxDepth, overallMaxDepth;
+    private volatile int lastIterations;
+    private volatile long totalIterations;
+    private volatile boolean lastChoiceStable;
+    private volatile long lastDecisionNanos, totalDecisionNanos;
+    private volatile long lastRouteSelectionNanos, totalRouteSelectionNanos;
+    private volatile long lastTranspositionHits, totalTranspositionHits;
+    private volatile long lastExpansionsSaved, totalExpansionsSaved;
+
+    private ObjectName objectName;
+
+    /**
+     * Records that a node was expanded, creating children at the given depth (ie. the number of moves after
+     * the current state).
+     *
+     * @param depth the depth of the children.
+     */
+    void nodeExpanded(int depth) {
+        nodesExpanded(1, depth);
+    }
+
+    /**
+     * Records that the given number of nodes were expanded, the deepest creating children at the given depth.
+     *
+     * @param numberOfNodes the number of nodes expanded.
+     * @param depth the depth of the deepest children.
+     */
+    void nodesExpanded(int numberOfNodes, int depth) {
+        nodesExpanded.addAndGet(numberOfNodes);
+
+        int currentMaxDepth;
+        while (depth > (currentMaxDepth = maxDepth.get()))
+            if (maxDepth.compareAndSet(currentMaxDepth, depth))
+                break;
+    }
+
+    /**
+     * Starts recording a decision.
+     */
+    void beginDecision() {
+        nodesExpanded.set(0);
+        maxDepth.set(0);
+        routeSelectionNanos = 0;
+        iterations = 0;
+        peakLiveNodes = 0;
+        choiceStable = false;
+        transpositionHits = 0;
+        expansionsSaved = 0;
+        decisionStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Records an iteration of the search.
+     *
+     * @param routeSelectionNanos the time spent selecting routes.
+     * @param liveNodes the number of states in the tree afterwards (or 0 if it isn't known).
+     * @param choiceStable true iff the search stopped after this iteration because the best choice was stable.
+     */
+    void iterationFinished(long routeSelectionNanos, int liveNodes, boolean choiceStable) {
+        this.routeSelectionNanos += routeSelectionNanos;
+        ++iterations;
+        peakLiveNodes = Math.max(peakLiveNodes, liveNodes);
+        this.choiceStable = choiceStable;
+    }
+
+    /**
+     * Records iterations of a search which doesn't record them one at a time (eg. MCTSController's playouts).
+     *
+     * @param iterations the number of iterations.
+     */
+    void iterationsFinished(int iterations) {
+        this.iterations += iterations;
+    }
+
+    /**
+     * Records the transpositions the decision's search found in its TranspositionTable.
+     *
+     * @param transpositionHits the number of hits.
+     * @param expansionsSaved the number of node expansions the hits saved.
+     */
+    void transpositionsFound(long transpositionHits, long expansionsSaved) {
+        this.transpositionHits = transpositionHits;
+        this.expansionsSaved = expansionsSaved;
+    }
+
+    /**
+     * Finishes recording a decision.
+     */
+    void endDecision() {
+        long decisionNanos = System.nanoTime() - decisionStartNanos;
+
+        lastNodesExpanded = nodesExpanded.get();
+        lastMaxDepth = maxDepth.get();
+        lastPeakLiveNodes = peakLiveNodes;
+        lastIterations = iterations;
+        lastChoiceStable = choiceStable;
+        lastDecisionNanos = decisionNanos;
+        lastRouteSelectionNanos = routeSelectionNanos;
+        lastTranspositionHits = transpositionHits;
+        lastExpansionsSaved = expansionsSaved;
+
+        totalNodesExpanded += lastNodesExpanded;
+        overallMaxDepth = Math.max(overallMaxDepth, lastMaxDepth);
+        overallPeakLiveNodes = Math.max(overallPeakLiveNodes, lastPeakLiveNodes);
+        totalIterations += lastIterations;
+        totalDecisionNanos += decisionNanos;
+        totalRouteSelectionNanos += routeSelectionNanos;
+        totalTranspositionHits += transpositionHits;
+        totalExpansionsSaved += expansionsSaved;
+        ++decisions;
+    }
+
+    /**
+     * Registers these statistics with the platform MBean server under the given name (and an id unique to
+     * these statistics), replacing the name they were registered under before.
+     *
+     * @param name the name to register under (eg. the player's name).
+     */
+    public synchronized void registerMBean(String name) {
+        unregisterMBean();
+
+        try {
+            ObjectName newObjectName = new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(name) + ",id=" + id);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(this, newObjectName);
+            objectName = newObjectName;
+        } catch (JMException e) {
+            throw new RuntimeException("Couldn't register SearchStatistics as " + name, e);
+        }
+    }
+
+    /**
+     * Unregisters these statistics from the platform MBean server, if they're registered.
+     */
+    public synchronized void unregisterMBean() {
+        if (objectName == null)
+            return;
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            // Someone else has unregistered it already
+        }
+        objectName = null;
+    }
+
+    @Override
+    public long getDecisions() {
+        return decisions;
+    }
+
+    @Override
+    public long getLastNodesExpanded() {
+        return lastNodesExpanded;
+    }
+
+    @Override
+    public long getTotalNodesExpanded() {
+        return totalNodesExpanded;
+    }
+
+    @Override
+    public double getLastNodesPerSecond() {
+        return perSecond(lastNodesExpanded, lastDecisionNanos);
+    }
+
+    @Override
+    public double getAverageNodesPerSecond() {
+        return perSecond(totalNodesExpanded, totalDecisionNanos);
+    }
+
+    /**
+     * Gets the most states in the tree (from the current state down) after any iteration of the last decision,
+     * as the AI's NodeBudget counts them.  This is 0 if the AI has no NodeBudget.
+     *
+     * @return the peak number of states in the tree.
+     */
+    @Override
+    public int getLastPeakLiveNodes() {
+        return lastPeakLiveNodes;
+    }
+
+    @Override
+    public int getPeakLiveNodes() {
+        return overallPeakLiveNodes;
+    }
+
+    /**
+     * Gets the deepest any node was expanded to in the last decision, in moves after the current state.
+     *
+     * @return the maximum depth of the tree.
+     */
+    @Override
+    public int getLastMaxDepth() {
+        return lastMaxDepth;
+    }
+
+    @Override
+    public int getMaxDepth() {
+        return overallMaxDepth;
+    }
+
+    /**
+     * Gets the number of iterations (of selecting the best routes and increasing their ply, or MCTS playouts)
+     * the last decision took, whether it finished because the best choice was stable or not.
+     *
+     * @return the number of iterations in the last decision.
+     */
+    @Override
+    public int getLastIterations() {
+        return lastIterations;
+    }
+
+    @Override
+    public long getTotalIterations() {
+        return totalIterations;
+    }
+
+    /**
+     * Checks whether the last decision finished because the best choice was stable (rather than because it
+     * ran out of time or iterations, the ply couldn't be increased or there was only one choice).
+     *
+     * @return true iff the last choice was stable.
+     */
+    @Override
+    public boolean isLastChoiceStable() {
+        return lastChoiceStable;
+    }
+
+    @Override
+    public long getLastDecisionMillis() {
+        return lastDecisionNanos / 1000000;
+    }
+
+    @Override
+    public long getTotalDecisionMillis() {
+        return totalDecisionNanos / 1000000;
+    }
+
+    @Override
+    public long getLastRouteSelectionMillis() {
+        return lastRouteSelectionNanos / 1000000;
+    }
+
+    @Override
+    public long getTotalRouteSelectionMillis() {
+        return totalRouteSelectionNanos / 1000000;
+    }
+
+    /**
+     * Gets the number of subtrees the last decision's search didn't need to search, because a transposition
+     * of them was found in the TranspositionTable.  This is 0 if the AI has no TranspositionTable.
+     *
+     * @return the number of transposition table hits in the last decision.
+     */
+    @Override
+    public long getLastTranspositionHits() {
+        return lastTranspositionHits;
+    }
+
+    @Override
+    public long getTotalTranspositionHits() {
+        return totalTranspositionHits;
+    }
+
+    /**
+     * Gets the number of node expansions the last decision's transposition table hits saved (as an upper
+     * bound, see TranspositionTable.getExpansionsSaved).
+     *
+     * @return the number of node expansions saved in the last decision.
+     */
+    @Override
+    public long getLastExpansionsSaved() {
+        return lastExpansionsSaved;
+    }
+
+    @Override
+    public long getTotalExpansionsSaved() {
+        return totalExpansionsSaved;
+    }
+
+    /**
+     * Resets the totals (and the last decision's values) to zero.
+     */
+    @Override
+    public synchronized void reset() {
+        decisions = 0;
+        lastNodesExpanded = totalNodesExpanded = 0;
+        lastPeakLiveNodes = overallPeakLiveNodes = 0;
+        lastMaxDepth = overallMaxDepth = 0;
+        lastIterations = 0;
+        totalIterations = 0;
+        lastChoiceStable = false;
+        lastDecisionNanos = totalDecisionNanos = 0;
+        lastRouteSelectionNanos = totalRouteSelectionNanos = 0;
+        lastTranspositionHits = totalTranspositionHits = 0;
+        lastExpansionsSaved = totalExpansionsSaved = 0;
+    }
+
+    private static double perSecond(long count, long nanos) {
+        return nanos == 0 ? 0 : count * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        String summary = String.format(
+                "%d nodes expanded in %d ms (%.0f/s), %d iterations (%s), max depth %d, peak %d nodes",
+                lastNodesExpanded, getLastDecisionMillis(), getLastNodesPerSecond(), lastIterations,
+                lastChoiceStable ? "stable" : "not stable", lastMaxDepth, lastPeakLiveNodes);
+
+        if (lastTranspositionHits == 0)
+            return summary;
+        return String.format("%s, %d transpositions saving up to %d expansions", summary, lastTranspositionHits,
+                lastExpansionsSaved);
+    }
+}
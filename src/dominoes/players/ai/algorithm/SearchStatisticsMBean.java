@@ -0,0 +1,49 @@
+package dominoes.players.ai.algorithm;
+
+/**
+ * The JMX management interface of SearchStatistics.  "Last" values are for the most recent decision (ie. call
+ * to getBestChoice), and the others are over every decision since the statistics were reset.
+ */
+public interface SearchStatisticsMBean {
+    long getDecisions();
+
+    long getLastNodesExpanded();
+
+    long getTotalNodesExpanded();
+
+    double getLastNodesPerSecond();
+
+    double getAverageNodesPerSecond();
+
+    int getLastPeakLiveNodes();
+
+    int getPeakLiveNodes();
+
+    int getLastMaxDepth();
+
+    int getMaxDepth();
+
+    int getLastIterations();
+
+    long getTotalIterations();
+
+    boolean isLastChoiceStable();
+
+    long getLastDecisionMillis();
+
+    long getTotalDecisionMillis();
+
+    long getLastRouteSelectionMillis();
+
+    long getTotalRouteSelectionMillis();
+
+    long getLastTranspositionHits();
+
+    long getTotalTranspositionHits();
+
+    long getLastExpansionsSaved();
+
+    long getTotalExpansionsSaved();
+
+    void reset();
+}
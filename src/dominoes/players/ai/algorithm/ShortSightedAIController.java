@@ -25,12 +25,21 @@ public class ShortSightedAIController extends SimpleAIController {
 
     @Override
     public Choice getBestChoice() {
+        getSearchStatistics().beginDecision();
+        try {
+            return getHeaviestChoice();
+        } finally {
+            getSearchStatistics().endDecision();
+        }
+    }
+
+    private Choice getHeaviestChoice() {
         List<GameState> childStates = getChildStates();
 
         Choice bestChoice = Collections.max(childStates, comparator).getChoiceTaken();
 
         if (bestChoice.getAction() == Choice.Action.PICKED_UP)
-            return new Choice(Choice.Action.PICKED_UP, null);
+            return Choice.valueOf(Choice.Action.PICKED_UP, null);
         else
             return bestChoice;
     }
@@ -16,7 +16,7 @@ import java.util.List;
 public abstract class SimpleAIController implements AIController {
     private static final int MAX_PLY = 1;
     private GameState currentState;
-
+    private final SearchStatistics searchStatistics = new SearchStatistics();
 
     @Override
     public void setInitialState(List<ImmutableBone> myBones, boolean isMyTurn, ImmutableBone... initialLayout) {
@@ -30,6 +30,11 @@ public abstract class SimpleAIController implements AIController {
         currentState = currentState.choose(choice);
     }
 
+    @Override
+    public void setTimeBudget(long timeBudgetMillis) {
+        // Only looks one move ahead, so never needs a time limit.
+    }
+
     @Override
     public int getHandWeight() {
         int score = 0;
@@ -51,6 +56,11 @@ public abstract class SimpleAIController implements AIController {
         return childStates;
     }
 
+    @Override
+    public SearchStatistics getSearchStatistics() {
+        return searchStatistics;
+    }
+
     @Override
     public GameState getGameState() {
         return currentState;
@@ -23,7 +23,7 @@ public abstract class AbstractStateEnumerator implements StateEnumerator {
 
         for (ImmutableBone bone : availableBones) {
             // Can place any of my bones
-            new_states.add(new Choice(Choice.Action.PLACED_RIGHT, bone));
+            new_states.add(Choice.valueOf(Choice.Action.PLACED_RIGHT, bone));
         }
 
         return new_states;
@@ -33,6 +33,9 @@ public abstract class AbstractStateEnumerator implements StateEnumerator {
      * Given the available bones to use and the rightmost and leftmost values in the layout,
      * return the complete set of valid placing choices.
      *
+     * If the layout's ends are equal, placing a bone on either end gives the same position (mirrored),
+     * so only PLACED_RIGHT is returned.
+     *
      * @param availableBones the bones that can be placed.
      * @param layoutLeft the leftmost value in the layout.
      * @param layoutRight the rightmost value in the layout.
@@ -45,11 +48,11 @@ public abstract class AbstractStateEnumerator implements StateEnumerator {
         for (ImmutableBone bone : availableBones) {
             // Check right/last of placed bones
             if (bone.matches(layoutRight))
-                validChoices.add(new Choice(Choice.Action.PLACED_RIGHT, bone));
+                validChoices.add(Choice.valueOf(Choice.Action.PLACED_RIGHT, bone));
 
             // Check left/first of placed bones
-            if (bone.matches(layoutLeft))
-                validChoices.add(new Choice(Choice.Action.PLACED_LEFT, bone));
+            if (bone.matches(layoutLeft) && layoutLeft != layoutRight)
+                validChoices.add(Choice.valueOf(Choice.Action.PLACED_LEFT, bone));
         }
 
         return validChoices;
@@ -66,7 +69,7 @@ public abstract class AbstractStateEnumerator implements StateEnumerator {
         List<Choice> validChoices = new ArrayList<Choice>(bonesThatCanBePickedUp.size());
 
         for (ImmutableBone bone : bonesThatCanBePickedUp) {
-            validChoices.add(new Choice(Choice.Action.PICKED_UP, bone));
+            validChoices.add(Choice.valueOf(Choice.Action.PICKED_UP, bone));
         }
 
         return validChoices;
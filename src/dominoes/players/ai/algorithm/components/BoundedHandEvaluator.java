@@ -0,0 +1,29 @@
+package dominoes.players.ai.algorithm.components;
+
+import dominoes.players.ai.algorithm.helper.BoneState;
+
+/**
+ * A HandEvaluator which can also bound how much the value can change over a number of moves, so a
+ * RouteSelector can prove that a subtree can't affect its choice without searching it.
+ */
+public interface BoundedHandEvaluator extends HandEvaluator {
+    /**
+     * Gets an upper bound on how much the value can increase over at most the given number of moves
+     * from the given state.
+     *
+     * @param boneState the state to start from.
+     * @param moves the maximum number of moves.
+     * @return the maximum increase in value (non-negative).
+     */
+    double getMaxValueIncrease(BoneState boneState, int moves);
+
+    /**
+     * Gets an upper bound on how much the value can decrease over at most the given number of moves
+     * from the given state.
+     *
+     * @param boneState the state to start from.
+     * @param moves the maximum number of moves.
+     * @return the maximum decrease in value (non-negative).
+     */
+    double getMaxValueDecrease(BoneState boneState, int moves);
+}
@@ -8,7 +8,7 @@ import dominoes.players.ai.algorithm.helper.ImmutableBone;
  * Evaluates the state value as the expectation value of the opponent's hand's weight minus
  * my hand's weight.
  */
-public class ExpectationWeightEvaluator implements HandEvaluator {
+public class ExpectationWeightEvaluator implements BoundedHandEvaluator {
 //    private static final int COST_OF_MY_PICKUP = 0;
 //    private static final int VALUE_OF_OPPONENT_PICKUP = 0;
 //    private static final int COST_OF_LOSING = 100;
@@ -76,11 +76,10 @@ public class ExpectationWeightEvaluator implements HandEvaluator {
 
         } else if (choice.getAction() == Choice.Action.PICKED_UP) {
 
-            double weightedAverageOfBoneyardCards = 0;
-            for (ImmutableBone pickupableBone : boneState.getUnknownBones())
-                weightedAverageOfBoneyardCards += pickupableBone.weight() * boneState.getProbThatBoneyardHasBone(pickupableBone);
-
-            weightedAverageOfBoneyardCards /= boneState.getUnknownBones().size();
+            // Every pickup child of a state shares the state's expected boneyard weight, which is cached.
+            // (The unknown bones are those in the boneyard and the opponent's hand.)
+            double weightedAverageOfBoneyardCards = boneState.getExpectedBoneyardWeight()
+                    / (boneState.getSizeOfBoneyard() + boneState.getSizeOfOpponentHand());
 
             if (isMyTurn)
                 addedValue -= weightedAverageOfBoneyardCards - COST_OF_MY_PICKUP;
@@ -112,5 +111,60 @@ public class ExpectationWeightEvaluator implements HandEvaluator {
 
         return addedValue;
     }
-}
 
+    /**
+     * Each move adds at most: the constant value, plus the heaviest bone I could place, or the heaviest
+     * bone the opponent could pick up plus VALUE_OF_OPPONENT_PICKUP, or COST_OF_MY_PICKUP (if I pick up a
+     * blank).  Winning can only happen once, and only if I have few enough bones to place them all within
+     * the given moves (I can't place twice in a row).  An impass multiplies the last move's value, once.
+     */
+    @Override
+    public double getMaxValueIncrease(BoneState boneState, int moves) {
+        if (moves == 0)
+            return 0;
+
+        int heaviestUnknownBone = getHeaviestBone(boneState.getUnknownBones());
+        double maxPerMove = getHeaviestBone(boneState.getMyBones());
+
+        if (boneState.getSizeOfBoneyard() > 0)
+            maxPerMove = Math.max(maxPerMove, Math.max(heaviestUnknownBone + VALUE_OF_OPPONENT_PICKUP, COST_OF_MY_PICKUP));
+        else
+            maxPerMove = Math.max(maxPerMove, heaviestUnknownBone);
+
+        double increase = moves * (Math.max(constantValueAdded, 0) + maxPerMove + VALUE_OF_OPPONENT_PASS)
+                + Math.max(constantValueAdded, 0) * Math.max(COST_FACTOR_OF_IMPASS - 1, 0) + Math.max(-COST_OF_IMPASS, 0);
+
+        if (boneState.getMyBones().size() <= (moves + 1) / 2)
+            increase += VALUE_OF_WINNING;
+
+        return increase;
+    }
+
+    /**
+     * Each move takes away at most: the (negative) constant value, plus the heaviest bone the opponent
+     * could place or I could pick up.  Losing can only happen once,
+     * and only if the opponent has few enough bones to place them all within the given moves.
+     */
+    @Override
+    public double getMaxValueDecrease(BoneState boneState, int moves) {
+        if (moves == 0)
+            return 0;
+
+        int heaviestUnknownBone = getHeaviestBone(boneState.getUnknownBones());
+
+        double decrease = moves * (Math.max(-constantValueAdded, 0) + heaviestUnknownBone + COST_OF_MY_PASS)
+                + Math.max(-constantValueAdded, 0) * Math.max(COST_FACTOR_OF_IMPASS - 1, 0) + Math.max(COST_OF_IMPASS, 0);
+
+        if (boneState.getSizeOfOpponentHand() <= (moves + 1) / 2)
+            decrease += COST_OF_LOSING;
+
+        return decrease;
+    }
+
+    private static int getHeaviestBone(Iterable<ImmutableBone> bones) {
+        int heaviest = 0;
+        for (ImmutableBone bone : bones)
+            heaviest = Math.max(heaviest, bone.weight());
+        return heaviest;
+    }
+}
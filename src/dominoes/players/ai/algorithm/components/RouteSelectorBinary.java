@@ -4,6 +4,7 @@ import dominoes.players.ai.algorithm.GameState;
 import dominoes.players.ai.algorithm.helper.Choice;
 import dominoes.players.ai.algorithm.helper.Route;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedList;
@@ -51,21 +52,48 @@ public class RouteSelectorBinary implements RouteSelector {
             bestRoutes.add(getBestRoute(childState));
         }
 
+        return sortRoutes(bestRoutes, state.isMyTurn());
+    }
+
+    /**
+     * Sorts the given routes from best to worst (according to whose turn it is).
+     *
+     * @param bestRoutes the routes to sort.
+     * @param isMyTurn true iff the routes start from a state where it is my turn.
+     * @return the sorted routes.
+     */
+    protected List<Route> sortRoutes(List<Route> bestRoutes, boolean isMyTurn) {
         Collections.sort(bestRoutes, routeValueComparator);
-        if (state.isMyTurn())
+        if (isMyTurn)
             Collections.reverse(bestRoutes);
 
         return bestRoutes;
     }
 
     public Route getBestRoute(GameState state) {
+        List<GameState> childStates = state.getChildStates();
+        List<Route> bestRoutesFromChildren = new ArrayList<Route>(childStates.size());
+
+        for (GameState childState : childStates)
+            bestRoutesFromChildren.add(getBestRoute(childState));
+
+        return getReducedRoute(state, bestRoutesFromChildren);
+    }
+
+    /**
+     * Reduces the best routes from each of the given state's children (in the same order as
+     * state.getChildStates()) into the best route from the given state.
+     *
+     * @param state the state the routes are extended back to.
+     * @param bestRoutesFromChildren the best route from each child state.
+     * @return the best route from the given state.
+     */
+    protected Route getReducedRoute(GameState state, List<Route> bestRoutesFromChildren) {
         Route bestRoute = null;
         int n = 0;
         int sumOfOpponentValues = 0;
 
-        for (GameState childState : state.getChildStates()) {
-            Route bestRouteFromChild = getBestRoute(childState);
-
+        for (Route bestRouteFromChild : bestRoutesFromChildren) {
             if (bestRoute == null)
                 bestRoute = bestRouteFromChild;
             else if (state.isMyTurn() && bestRouteFromChild.getValue() > bestRoute.getValue())
@@ -0,0 +1,338 @@
+package dominoes.players.ai.algorithm.components;
+
+import dominoes.players.ai.algorithm.GameState;
+import dominoes.players.ai.algorithm.helper.BoneState;
+import dominoes.players.ai.algorithm.helper.Bones;
+import dominoes.players.ai.algorithm.helper.Choice;
+import dominoes.players.ai.algorithm.helper.ImmutableBone;
+import dominoes.players.ai.algorithm.helper.Route;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A RouteSelector which treats the tree as an expectimax tree: my placements are max nodes (searched with
+ * alpha-beta), and the opponent's moves and my pickups are chance nodes, weighted by the probability that the
+ * opponent (or the boneyard) has each bone.
+ *
+ * Chance nodes are pruned with Star1, using the BoundedHandEvaluator's bounds on how much the value can change
+ * beneath each child, and Star2-style probing: before searching a chance node's children in full, the first
+ * child of each max node child is searched, which gives a lower bound on that child and often enough to cut
+ * the chance node off without searching the rest.
+ *
+ * On the opponent's turn, each route from getBestRoutes is searched with a full window, so its value is the
+ * exact expectimax value.  On my turn only the first (best) route's value is exact: each later route is only
+ * searched far enough to show it's no better, so its value is an upper bound, which may equal the best value.
+ * A chance node's route follows its most probable child.
+ */
+public class RouteSelectorExpectimax extends RouteSelectorBinary {
+    private final BoundedHandEvaluator handEvaluator;
+    private long statesSearched;
+
+    private static final Comparator<GameState> bestValueFirst = new Comparator<GameState>() {
+        @Override
+        public int compare(GameState o1, GameState o2) {
+            return Double.compare(o2.getValue(), o1.getValue());
+        }
+    };
+
+    /**
+     * Creates a RouteSelectorExpectimax which bounds the values of subtrees using the given HandEvaluator,
+     * which must be the one the GameStates are valued with.
+     *
+     * @param handEvaluator the HandEvaluator used to value the GameStates.
+     */
+    public RouteSelectorExpectimax(BoundedHandEvaluator handEvaluator) {
+        this.handEvaluator = handEvaluator;
+    }
+
+    /**
+     * Gets the number of states searched (ie. not pruned) since the counter was last reset.
+     *
+     * @return the number of states searched.
+     */
+    public long getStatesSearched() {
+        return statesSearched;
+    }
+
+    /**
+     * Resets the number of states searched.
+     */
+    public void resetCounters() {
+        statesSearched = 0;
+    }
+
+    @Override
+    public List<Route> getBestRoutes(GameState state) {
+        List<Route> bestRoutes = new ArrayList<Route>();
+        List<GameState> orderedChildStates = new ArrayList<GameState>(state.getChildStates());
+        Collections.sort(orderedChildStates, bestValueFirst);
+        double alpha = Double.NEGATIVE_INFINITY;
+        Route exactBestRoute = null;
+
+        for (GameState childState : orderedChildStates) {
+            // Skip pickup child states
+            Choice choiceTaken = childState.getChoiceTaken();
+            if (choiceTaken != null && choiceTaken.getAction() == Choice.Action.PICKED_UP)
+                continue;
+
+            // If it's my turn, only the best route needs an exact value: the others are only searched
+            // far enough to show they're worse, and valued with an upper bound.
+            Route route = getBestRoute(childState, alpha, Double.POSITIVE_INFINITY);
+            if (state.isMyTurn() && (exactBestRoute == null || route.getValue() > alpha)) {
+                exactBestRoute = route;
+                alpha = route.getValue();
+            }
+
+            bestRoutes.add(route);
+        }
+
+        sortRoutes(bestRoutes, state.isMyTurn());
+
+        // A bound can tie with the best value, and mustn't be put ahead of the route which is exactly that good.
+        if (exactBestRoute != null && bestRoutes.get(0) != exactBestRoute) {
+            bestRoutes.remove(exactBestRoute);
+            bestRoutes.add(0, exactBestRoute);
+        }
+
+        return bestRoutes;
+    }
+
+    @Override
+    public Route getBestRoute(GameState state) {
+        return getBestRoute(state, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Gets the best route from the given state (extended back to its parent).  If the route's value is
+     * within (alpha, beta) it is exact, otherwise it is only a bound (ie. fail-soft).
+     */
+    private Route getBestRoute(GameState state, double alpha, double beta) {
+        return getBestRoute(state, alpha, beta, null);
+    }
+
+    /**
+     * As getBestRoute(state, alpha, beta), but if state is a max node its first child has already been
+     * searched (by a Star2 probe) and has the given route, which is reused rather than searched again.
+     */
+    private Route getBestRoute(GameState state, double alpha, double beta, Route probedRoute) {
+        ++statesSearched;
+        List<GameState> childStates = state.getChildStates();
+
+        Route bestRoute;
+        if (childStates.isEmpty())
+            bestRoute = new Route(state);
+        else if (isChanceNode(state))
+            bestRoute = getBestChanceRoute(state, childStates, alpha, beta);
+        else
+            bestRoute = getBestMaxRoute(childStates, alpha, beta, probedRoute);
+
+        bestRoute.extendBackward();
+        return bestRoute;
+    }
+
+    private static boolean isChanceNode(GameState state) {
+        if (!state.isMyTurn())
+            return true;
+
+        // If I have to pick up, every unknown bone is enumerated.
+        Choice firstChoice = state.getChildStates().get(0).getChoiceTaken();
+        return firstChoice.getAction() == Choice.Action.PICKED_UP;
+    }
+
+    private Route getBestMaxRoute(List<GameState> childStates, double alpha, double beta, Route probedRoute) {
+        List<GameState> orderedChildStates = new ArrayList<GameState>(childStates);
+        Collections.sort(orderedChildStates, bestValueFirst);
+
+        Route bestRoute = null;
+
+        for (GameState childState : orderedChildStates) {
+            Route route;
+            if (bestRoute == null && probedRoute != null)
+                route = probedRoute;
+            else
+                route = getBestRoute(childState, bestRoute == null ? alpha : Math.max(alpha, bestRoute.getValue()), beta);
+
+            if (bestRoute == null || route.getValue() > bestRoute.getValue())
+                bestRoute = route;
+
+            if (bestRoute.getValue() >= beta)
+                break;
+        }
+
+        return bestRoute;
+    }
+
+    private Route getBestChanceRoute(GameState state, List<GameState> childStates, double alpha, double beta) {
+        int n = childStates.size();
+        double[] weights = getChanceWeights(state, childStates);
+
+        // Search the most probable children first, so the most probable child is always searched.
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; ++i)
+            order[i] = i;
+        sortByWeight(order, weights);
+
+        double[] lowerBounds = new double[n];
+        double[] upperBounds = new double[n];
+        double sumOfLowerBounds = 0, sumOfUpperBounds = 0;
+
+        for (int i = 0; i < n; ++i) {
+            GameState childState = childStates.get(i);
+            int moves = childState.getMaxRemainingPlyInSubtree();
+            BoneState childBoneState = childState.getBoneState();
+
+            lowerBounds[i] = childState.getValue() - handEvaluator.getMaxValueDecrease(childBoneState, moves);
+            upperBounds[i] = childState.getValue() + handEvaluator.getMaxValueIncrease(childBoneState, moves);
+            sumOfLowerBounds += weights[i] * lowerBounds[i];
+            sumOfUpperBounds += weights[i] * upperBounds[i];
+        }
+
+        if (sumOfUpperBounds <= alpha)
+            return createBoundRoute(childStates.get(order[0]), sumOfUpperBounds);
+        if (sumOfLowerBounds >= beta)
+            return createBoundRoute(childStates.get(order[0]), sumOfLowerBounds);
+
+        // Star2: probing a max node child's best-looking move gives a lower bound on its value, which can
+        // be enough to fail high without searching anything else.
+        Route[] probedRoutes = new Route[n];
+
+        if (beta != Double.POSITIVE_INFINITY) {
+            for (int i : order) {
+                GameState childState = childStates.get(i);
+                if (weights[i] == 0 || childState.getChildStates().isEmpty() || isChanceNode(childState))
+                    continue;
+
+                double probeBeta = Math.min((beta - (sumOfLowerBounds - weights[i] * lowerBounds[i])) / weights[i],
+                        upperBounds[i]);
+                GameState probeState = Collections.min(childState.getChildStates(), bestValueFirst);
+                Route probedRoute = getBestRoute(probeState, lowerBounds[i], probeBeta);
+                double probeValue = probedRoute.getValue();
+
+                // Unless it failed high, the probe's result is still good enough when the child is searched
+                // in full (since that child's alpha won't be less than its lower bound).
+                if (probeValue < probeBeta)
+                    probedRoutes[i] = probedRoute;
+
+                if (probeValue > lowerBounds[i]) {
+                    sumOfLowerBounds += weights[i] * (probeValue - lowerBounds[i]);
+                    lowerBounds[i] = probeValue;
+
+                    if (sumOfLowerBounds >= beta)
+                        return createBoundRoute(childStates.get(order[0]), sumOfLowerBounds);
+                }
+            }
+        }
+
+        // Star1: search each child with the narrowest window that could still change the result.
+        Route mostProbableRoute = null;
+        double sumOfValues = 0;
+
+        for (int i : order) {
+            if (weights[i] == 0)
+                continue;
+
+            sumOfLowerBounds -= weights[i] * lowerBounds[i];
+            sumOfUpperBounds -= weights[i] * upperBounds[i];
+
+            double childAlpha = Math.max((alpha - sumOfValues - sumOfUpperBounds) / weights[i], lowerBounds[i]);
+            double childBeta = Math.min((beta - sumOfValues - sumOfLowerBounds) / weights[i], upperBounds[i]);
+
+            Route route = getBestRoute(childStates.get(i), childAlpha, childBeta, probedRoutes[i]);
+            if (mostProbableRoute == null)
+                mostProbableRoute = route;
+
+            sumOfValues += weights[i] * route.getValue();
+
+            if (sumOfValues + sumOfUpperBounds <= alpha)
+                return adjustRouteValue(mostProbableRoute, sumOfValues + sumOfUpperBounds);
+            if (sumOfValues + sumOfLowerBounds >= beta)
+                return adjustRouteValue(mostProbableRoute, sumOfValues + sumOfLowerBounds);
+        }
+
+        return adjustRouteValue(mostProbableRoute, sumOfValues);
+    }
+
+    /**
+     * Gets the probability of each child of a chance node.  The opponent places each bone they might have with
+     * the probability they have it (shared between the ends it could go on), and picks up or passes with the
+     * probability they have none of them.  I pick up each unknown bone with the probability it's in the boneyard.
+     *
+     * @return the probability of each child state, which sum to 1.
+     */
+    private static double[] getChanceWeights(GameState state, List<GameState> childStates) {
+        BoneState boneState = state.getBoneState();
+        int n = childStates.size();
+        double[] weights = new double[n];
+
+        if (state.isMyTurn()) {
+            for (int i = 0; i < n; ++i)
+                weights[i] = boneState.getProbThatBoneyardHasBone(childStates.get(i).getChoiceTaken().getBone());
+
+        } else {
+            int[] sides = new int[Bones.NUMBER_OF_BONES];
+            for (GameState childState : childStates) {
+                ImmutableBone bone = childState.getChoiceTaken().getBone();
+                if (bone != null)
+                    ++sides[Bones.indexOf(bone)];
+            }
+
+            double probOfNoPlacement = 1;
+            for (int boneIndex = 0; boneIndex < Bones.NUMBER_OF_BONES; ++boneIndex)
+                if (sides[boneIndex] != 0)
+                    probOfNoPlacement *= 1 - boneState.getProbThatOpponentHasBone(Bones.getBone(boneIndex));
+
+            for (int i = 0; i < n; ++i) {
+                ImmutableBone bone = childStates.get(i).getChoiceTaken().getBone();
+                if (bone == null)
+                    weights[i] = probOfNoPlacement;
+                else
+                    weights[i] = boneState.getProbThatOpponentHasBone(bone) / sides[Bones.indexOf(bone)];
+            }
+        }
+
+        double sumOfWeights = 0;
+        for (double weight : weights)
+            sumOfWeights += weight;
+
+        for (int i = 0; i < n; ++i)
+            weights[i] = (sumOfWeights > 0) ? weights[i] / sumOfWeights : 1.0 / n;
+
+        return weights;
+    }
+
+    private static void sortByWeight(Integer[] order, final double[] weights) {
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Double.compare(weights[o2], weights[o1]);
+            }
+        });
+    }
+
+    /**
+     * Creates a route from a child of a chance node which was pruned before it was searched.  The route
+     * follows the best-looking states down to a leaf, so that ProbabilisticAI increases the ply of a final
+     * state rather than of a whole subtree.
+     */
+    private static Route createBoundRoute(GameState childState, double value) {
+        GameState finalState = childState;
+        while (!finalState.getChildStates().isEmpty())
+            finalState = Collections.min(finalState.getChildStates(), bestValueFirst);
+
+        Route route = new Route(finalState);
+        for (GameState state = finalState; state != childState; state = state.getParent())
+            route.extendBackward();
+        route.extendBackward();
+
+        return adjustRouteValue(route, value);
+    }
+
+    private static Route adjustRouteValue(Route route, double value) {
+        route.increaseValue(value - route.getValue());
+        return route;
+    }
+}
@@ -0,0 +1,151 @@
+package dominoes.players.ai.algorithm.components;
+
+import dominoes.players.ai.algorithm.GameState;
+import dominoes.players.ai.algorithm.helper.Choice;
+import dominoes.players.ai.algorithm.helper.Route;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A RouteSelectorBinary which splits the top levels of the GameState tree into ForkJoinPool tasks.
+ *
+ * The routes from each child are reduced in the same order and with the same rule as RouteSelectorBinary,
+ * so this selects exactly the same routes - it just uses more cores to do it.  Below forkDepth levels
+ * (or where a state has only one child) the recursion falls back to the sequential RouteSelectorBinary.
+ *
+ * NB. Each task only expands the states in its own subtree, so no two threads ever lazily initialise
+ * the same GameState.  Only getBestRoutes is parallel - getBestRoute is the inherited sequential recursion.
+ *
+ * By default every RouteSelectorForkJoin shares one pool with a thread per processor, so running several
+ * AIs at once (eg. in AutomatedTable's parallel tournaments) doesn't start a pool per AI.
+ */
+public class RouteSelectorForkJoin extends RouteSelectorBinary {
+    private static final int DEFAULT_FORK_DEPTH = 3;
+    private static final ForkJoinPool SHARED_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    private final ForkJoinPool pool;
+    private final int forkDepth;
+
+    /**
+     * Creates a RouteSelectorForkJoin using the shared pool, forking the top DEFAULT_FORK_DEPTH levels
+     * of the tree.
+     */
+    public RouteSelectorForkJoin() {
+        this(SHARED_POOL, DEFAULT_FORK_DEPTH);
+    }
+
+    /**
+     * Creates a RouteSelectorForkJoin.
+     *
+     * @param pool the pool to run the tasks in, which the caller is responsible for shutting down.
+     * @param forkDepth the number of levels of the tree (below the current state) to split into tasks.
+     */
+    public RouteSelectorForkJoin(ForkJoinPool pool, int forkDepth) {
+        if (pool == null)
+            throw new IllegalArgumentException("pool can't be null");
+        if (forkDepth < 0)
+            throw new IllegalArgumentException("forkDepth can't be negative");
+
+        this.pool = pool;
+        this.forkDepth = forkDepth;
+    }
+
+    @Override
+    public List<Route> getBestRoutes(GameState state) {
+        List<GameState> childStatesToFollow = new ArrayList<GameState>();
+
+        for (GameState childState : state.getChildStates()) {
+            // Skip pickup child states
+            Choice choiceTaken = childState.getChoiceTaken();
+            if (choiceTaken != null && choiceTaken.getAction() == Choice.Action.PICKED_UP)
+                continue;
+
+            childStatesToFollow.add(childState);
+        }
+
+        List<Route> bestRoutes = new LinkedList<Route>(pool.invoke(new ChildRoutesTask(childStatesToFollow, 1)));
+
+        return sortRoutes(bestRoutes, state.isMyTurn());
+    }
+
+    /**
+     * Gets the best route from the given state, forking its children into tasks if it is within
+     * forkDepth of the state the search started from.
+     *
+     * @param state the state the route starts from.
+     * @param depth the depth of state below the state the search started from.
+     * @return the best route from the given state.
+     */
+    private Route getBestRoute(GameState state, int depth) {
+        if (depth >= forkDepth)
+            return super.getBestRoute(state);
+
+        List<GameState> childStates = state.getChildStates();
+
+        if (childStates.size() < 2)
+            return super.getBestRoute(state);
+
+        return getReducedRoute(state, new ChildRoutesTask(childStates, depth + 1).compute());
+    }
+
+    /**
+     * Task to get the best route from a single state.
+     */
+    private class BestRouteTask extends RecursiveTask<Route> {
+        private static final long serialVersionUID = 1L;
+
+        private final GameState state;
+        private final int depth;
+
+        private BestRouteTask(GameState state, int depth) {
+            this.state = state;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Route compute() {
+            return getBestRoute(state, depth);
+        }
+    }
+
+    /**
+     * Task to get the best route from each of a list of sibling states, returned in the same order.
+     */
+    private class ChildRoutesTask extends RecursiveTask<List<Route>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<GameState> childStates;
+        private final int depth;
+
+        private ChildRoutesTask(List<GameState> childStates, int depth) {
+            this.childStates = childStates;
+            this.depth = depth;
+        }
+
+        @Override
+        protected List<Route> compute() {
+            List<BestRouteTask> tasks = new ArrayList<BestRouteTask>(childStates.size());
+
+            // Fork all but the first child, which this thread works on itself.
+            for (int i = 1; i < childStates.size(); ++i) {
+                BestRouteTask task = new BestRouteTask(childStates.get(i), depth);
+                task.fork();
+                tasks.add(task);
+            }
+
+            List<Route> bestRoutes = new ArrayList<Route>(childStates.size());
+
+            if (!childStates.isEmpty())
+                bestRoutes.add(getBestRoute(childStates.get(0), depth));
+
+            for (BestRouteTask task : tasks)
+                bestRoutes.add(task.join());
+
+            return bestRoutes;
+        }
+    }
+}
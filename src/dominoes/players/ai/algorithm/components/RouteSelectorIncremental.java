@@ -0,0 +1,29 @@
+package dominoes.players.ai.algorithm.components;
+
+import dominoes.players.ai.algorithm.GameState;
+import dominoes.players.ai.algorithm.helper.Route;
+
+/**
+ * A RouteSelectorBinary which caches the best route from each state in the state itself, so calling
+ * getBestRoutes again only re-evaluates the states whose subtrees have changed since the last call.
+ *
+ * A state's cached route is invalidated (along with its ancestors') when its ply is increased, and every
+ * cached route is invalidated when a move is played, so in ProbabilisticAI's ply-deepening loop each
+ * iteration only walks the paths down to the newly expanded states.  The routes selected are exactly
+ * the same as RouteSelectorBinary's.
+ */
+public class RouteSelectorIncremental extends RouteSelectorBinary {
+
+    @Override
+    public Route getBestRoute(GameState state) {
+        Route cachedBestRoute = state.getCachedBestRoute();
+
+        if (cachedBestRoute != null)
+            return new Route(cachedBestRoute);
+
+        Route bestRoute = super.getBestRoute(state);
+        state.setCachedBestRoute(new Route(bestRoute));
+
+        return bestRoute;
+    }
+}
@@ -0,0 +1,74 @@
+package dominoes.players.ai.algorithm.components;
+
+import dominoes.players.ai.algorithm.GameState;
+import dominoes.players.ai.algorithm.helper.Route;
+import dominoes.players.ai.algorithm.helper.TranspositionTable;
+
+import java.util.List;
+
+/**
+ * A RouteSelectorBinary which uses a TranspositionTable to avoid searching (and expanding) the same
+ * position twice when it is reached by different orders of choices.
+ *
+ * The table's counters are reset whenever the tree has a new root (ie. a move has been played), so they
+ * count the hits and expansions saved for the decision being made.
+ */
+public class RouteSelectorTransposition extends RouteSelectorBinary {
+    private final TranspositionTable transpositionTable;
+    private GameState root;
+    private int statesSearched;
+
+    public RouteSelectorTransposition() {
+        this(new TranspositionTable());
+    }
+
+    public RouteSelectorTransposition(TranspositionTable transpositionTable) {
+        this.transpositionTable = transpositionTable;
+    }
+
+    /**
+     * Gets the transposition table (eg. to read its hit and miss counters).
+     *
+     * @return the transposition table.
+     */
+    public TranspositionTable getTranspositionTable() {
+        return transpositionTable;
+    }
+
+    @Override
+    public List<Route> getBestRoutes(GameState state) {
+        // Once a move is played the old tree is discarded, so don't keep it reachable from the table.
+        if (state.getParent() == null && state != root) {
+            root = state;
+            transpositionTable.clear();
+            transpositionTable.resetCounters();
+        } else
+            transpositionTable.newSearch();
+
+        return super.getBestRoutes(state);
+    }
+
+    @Override
+    public Route getBestRoute(GameState state) {
+        // Leaves are cheaper to evaluate than to look up.
+        if (state.getStatus() != GameState.Status.HAS_CHILD_STATES)
+            return super.getBestRoute(state);
+
+        Route bestRoute = transpositionTable.get(state);
+
+        if (bestRoute != null) {
+            bestRoute.extendBackward();
+            return bestRoute;
+        }
+
+        int statesSearchedBefore = statesSearched++;
+        bestRoute = super.getBestRoute(state);
+
+        // Only store states that turned out to have children (ie. weren't game over), and routes that
+        // end beneath the state (a route reused from a transposition ends in another branch).
+        if (state.getStatus() == GameState.Status.HAS_CHILD_STATES && !bestRoute.isTransposed())
+            transpositionTable.put(state, bestRoute, statesSearched - statesSearchedBefore);
+
+        return bestRoute;
+    }
+}
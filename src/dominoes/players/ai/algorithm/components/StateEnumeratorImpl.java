@@ -32,7 +32,7 @@ public class StateEnumeratorImpl extends AbstractStateEnumerator {
 
         if (validChoices.isEmpty())
             // Nothing to pick up from boneyard, so pass
-            validChoices.add(new Choice(Choice.Action.PASS, null));
+            validChoices.add(Choice.valueOf(Choice.Action.PASS, null));
 
         return validChoices;
     }
@@ -56,10 +56,10 @@ public class StateEnumeratorImpl extends AbstractStateEnumerator {
 
             if (boneState.getSizeOfBoneyard() > 0) {
                 // Assuming the opponent can't place a bone, but can pick up:
-                validChoices.add(new Choice(Choice.Action.PICKED_UP, null));
+                validChoices.add(Choice.valueOf(Choice.Action.PICKED_UP, null));
             } else {
                 // Assuming the opponent can't place or pick up a bone:
-                validChoices.add(new Choice(Choice.Action.PASS, null));
+                validChoices.add(Choice.valueOf(Choice.Action.PASS, null));
             }
         }
 
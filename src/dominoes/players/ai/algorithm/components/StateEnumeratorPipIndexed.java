@@ -0,0 +1,97 @@
+package dominoes.players.ai.algorithm.components;
+
+import dominoes.players.ai.algorithm.helper.BoneState;
+import dominoes.players.ai.algorithm.helper.Choice;
+import dominoes.players.ai.algorithm.helper.MoveList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A StateEnumerator which gives the same choices as StateEnumeratorImpl, but works on masks of bones rather
+ * than lists: the bones that can be placed are found with one AND of the hand (or the unknown bones) with
+ * the masks of bones matching each end of the layout (see MoveList.addPlacements).
+ *
+ * Moves are generated into a MoveList, which can be iterated over without allocating anything (see
+ * getMyValidMoves and getOpponentValidMoves).  The StateEnumerator methods generate into a MoveList kept for
+ * each thread, and return a copy of its choices in order of bone index, which belongs to the caller.
+ */
+public class StateEnumeratorPipIndexed implements StateEnumerator {
+
+    // GameStates can be enumerated from several threads at once (eg. by RouteSelectorForkJoin).
+    private static final ThreadLocal<MoveList> moveLists = new ThreadLocal<MoveList>() {
+        @Override
+        protected MoveList initialValue() {
+            return new MoveList();
+        }
+    };
+
+    @Override
+    public List<Choice> getMyValidChoices(BoneState boneState) {
+        MoveList moves = moveLists.get();
+        getMyValidMoves(boneState, moves);
+        return new ArrayList<Choice>(moves.asChoices());
+    }
+
+    @Override
+    public List<Choice> getOpponentValidChoices(BoneState boneState) {
+        MoveList moves = moveLists.get();
+        getOpponentValidMoves(boneState, moves);
+        return new ArrayList<Choice>(moves.asChoices());
+    }
+
+    /**
+     * Puts all valid moves the AI could make, given the current state, into the given list (replacing
+     * whatever it held).
+     *
+     * @param boneState the current state's bone manager.
+     * @param moves the list to put the moves into.
+     */
+    public void getMyValidMoves(BoneState boneState, MoveList moves) {
+        moves.clear();
+        addPlacingMoves(boneState, boneState.getMyBonesMask(), moves);
+
+        if (moves.isEmpty() && boneState.getSizeOfBoneyard() > 0)
+            // No possible move - must pick up from boneyard
+            moves.addAll(Choice.Action.PICKED_UP, boneState.getUnknownBonesMask());
+
+        if (moves.isEmpty())
+            // Nothing to pick up from boneyard, so pass
+            moves.add(Choice.Action.PASS, -1);
+    }
+
+    /**
+     * Puts all valid moves the AI's opponent could make, given the current state, into the given list
+     * (replacing whatever it held).
+     *
+     * @param boneState the current state's bone manager.
+     * @param moves the list to put the moves into.
+     */
+    public void getOpponentValidMoves(BoneState boneState, MoveList moves) {
+        moves.clear();
+
+        if (boneState.isLayoutEmpty()) {
+            // If this is the first move of the game, the opponent will definitely place.
+            addPlacingMoves(boneState, boneState.getUnknownBonesMask(), moves);
+            return;
+        }
+
+        if (boneState.getSizeOfOpponentHand() > 0)
+            // Assuming the opponent can place a bone
+            addPlacingMoves(boneState, boneState.getUnknownBonesMask(), moves);
+
+        if (boneState.getSizeOfBoneyard() > 0)
+            // Assuming the opponent can't place a bone, but can pick up:
+            moves.add(Choice.Action.PICKED_UP, -1);
+        else
+            // Assuming the opponent can't place or pick up a bone:
+            moves.add(Choice.Action.PASS, -1);
+    }
+
+    /**
+     * Adds the placements of the given bones on the state's layout.
+     */
+    private static void addPlacingMoves(BoneState boneState, int bones, MoveList moves) {
+        moves.addPlacements(bones, boneState.getLayoutLeft(), boneState.getLayoutRight());
+    }
+}
@@ -0,0 +1,90 @@
+package dominoes.players.ai.algorithm.components;
+
+import dominoes.players.ai.algorithm.helper.BoneState;
+import dominoes.players.ai.algorithm.helper.Choice;
+import dominoes.players.ai.algorithm.helper.ImmutableBone;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A StateEnumeratorImpl which, when I have to pick up, only enumerates a stratified sample of the bones I
+ * might pick up, rather than every unknown bone.
+ *
+ * The unknown bones are ordered by whether I could place them straight away and then by weight, and a
+ * systematic sample of them is taken, spacing the samples evenly by the probability that the boneyard has
+ * each bone.  So the sample covers bones I can and can't place, light and heavy, in proportion to how
+ * likely I am to pick them up.  The sample is deterministic, so the same state always has the same children.
+ *
+ * NB. GameStateImpl.choose accepts my pickup of a bone which wasn't sampled.
+ */
+public class StateEnumeratorSampledPickups extends StateEnumeratorImpl {
+    private final int samples;
+
+    /**
+     * Creates a StateEnumeratorSampledPickups.
+     *
+     * @param samples the most pickups to enumerate when I have to pick up.
+     */
+    public StateEnumeratorSampledPickups(int samples) {
+        if (samples < 1)
+            throw new IllegalArgumentException("samples must be at least 1");
+        this.samples = samples;
+    }
+
+    @Override
+    public List<Choice> getMyValidChoices(BoneState boneState) {
+        List<Choice> validChoices = super.getMyValidChoices(boneState);
+
+        if (validChoices.size() <= samples || validChoices.get(0).getAction() != Choice.Action.PICKED_UP)
+            return validChoices;
+
+        return samplePickups(boneState, validChoices);
+    }
+
+    private List<Choice> samplePickups(BoneState boneState, List<Choice> pickupChoices) {
+        final int layoutLeft = boneState.getLayoutLeft();
+        final int layoutRight = boneState.getLayoutRight();
+
+        List<Choice> orderedChoices = new ArrayList<Choice>(pickupChoices);
+        Collections.sort(orderedChoices, new Comparator<Choice>() {
+            @Override
+            public int compare(Choice o1, Choice o2) {
+                ImmutableBone bone1 = o1.getBone(), bone2 = o2.getBone();
+                boolean placeable1 = bone1.matches(layoutLeft) || bone1.matches(layoutRight);
+                boolean placeable2 = bone2.matches(layoutLeft) || bone2.matches(layoutRight);
+
+                if (placeable1 != placeable2)
+                    return placeable1 ? -1 : 1;
+                return Integer.compare(bone1.weight(), bone2.weight());
+            }
+        });
+
+        double totalProb = 0;
+        for (Choice choice : orderedChoices)
+            totalProb += boneState.getProbThatBoneyardHasBone(choice.getBone());
+
+        if (totalProb <= 0)
+            return pickupChoices;
+
+        List<Choice> sampledChoices = new ArrayList<Choice>(samples);
+        double spacing = totalProb / samples;
+        double nextSample = spacing / 2;
+        double cumulativeProb = 0;
+
+        for (Choice choice : orderedChoices) {
+            cumulativeProb += boneState.getProbThatBoneyardHasBone(choice.getBone());
+
+            // Take each bone at most once, even if more than one sample point falls within it.
+            if (cumulativeProb > nextSample) {
+                sampledChoices.add(choice);
+                while (nextSample < cumulativeProb)
+                    nextSample += spacing;
+            }
+        }
+
+        return sampledChoices;
+    }
+}
@@ -38,6 +38,20 @@ public interface BoneState {
      */
     List<ImmutableBone> getUnknownBones();
 
+    /**
+     * Gets my hand as a mask (see Bones.toMask).
+     *
+     * @return the mask of my bones.
+     */
+    int getMyBonesMask();
+
+    /**
+     * Gets the bones the opponent might have as a mask (see Bones.toMask).
+     *
+     * @return the mask of unknown bones.
+     */
+    int getUnknownBonesMask();
+
     /**
      * Gets the probability that the given bone will be in the opponent's hand.
      *
@@ -54,6 +68,31 @@ public interface BoneState {
      */
     double getProbThatBoneyardHasBone(ImmutableBone bone);
 
+    /**
+     * Gets the expected weight of the opponent's hand (ie. the sum of each unknown bone's weight times
+     * the probability that the opponent has it).
+     *
+     * @return the expected weight of the opponent's hand.
+     */
+    double getExpectedOpponentHandWeight();
+
+    /**
+     * Gets the expected weight of the boneyard (ie. the sum of each unknown bone's weight times the
+     * probability that it's in the boneyard).
+     *
+     * @return the expected weight of the boneyard.
+     */
+    double getExpectedBoneyardWeight();
+
+    /**
+     * Gets the expected number of bones in the opponent's hand which match the given value (ie. the sum
+     * of the probabilities that the opponent has each unknown bone with that value).
+     *
+     * @param value the value to match (0 to 6).
+     * @return the opponent's probability mass in that suit.
+     */
+    double getOpponentSuitProbability(int value);
+
     /**
      * Gets the left value of the leftmost bone in the layout.
      * @return the left value of the leftmost bone in the layout.
@@ -73,4 +112,14 @@ public interface BoneState {
      * @return true if the layout is empty.
      */
     boolean isLayoutEmpty();
+
+    /**
+     * Gets the Zobrist hash of this state, covering my hand, the layout ends, the chances the opponent
+     * has had to pick up each unknown bone and the sizes of the boneyard and opponent's hand.
+     *
+     * Two BoneStates reached by different orders of moves have the same hash iff they are the same position.
+     *
+     * @return the Zobrist hash of this state.
+     */
+    long getZobristHash();
 }
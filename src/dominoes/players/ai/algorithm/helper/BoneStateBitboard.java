@@ -0,0 +1,338 @@
+package dominoes.players.ai.algorithm.helper;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Implementation of BoneState which stores my hand and the unknown bones as masks over the 28 bones
+ * (see Bones.indexOf), so creating the next state is a handful of mask operations rather than copying
+ * lists and maps.
+ *
+ * The unknown bones are kept in chance buckets, as in UnknownBoneManagerImpl: chanceMasks[i] holds the
+ * bones the opponent has had i chances to pick up, and the same rules are used to update them.
+ */
+public class BoneStateBitboard implements BoneState {
+    private final int layoutLeft, layoutRight;
+    private final int myBones;
+    private final int[] chanceMasks;
+    private final int largestNumberOfChances;
+    private final int sizeOfOpponentHand;
+    private final int sizeOfBoneyard;
+    private final boolean isPickup;
+    private final float[] chanceProbs;
+    private final long zobristHash;
+
+    private List<ImmutableBone> myBoneList;
+    private List<ImmutableBone> unknownBoneList;
+    private UnknownBoneAggregates unknownBoneAggregates;
+
+    public BoneStateBitboard(List<ImmutableBone> myBones, ImmutableBone... initialLayout) {
+        this.myBones = Bones.toMask(myBones);
+
+        if (initialLayout.length == 0) {
+            layoutLeft = -1;
+            layoutRight = -1;
+        } else {
+            layoutLeft = initialLayout[0].left();
+            layoutRight = initialLayout[initialLayout.length-1].right();
+        }
+
+        int unknownBones = ((1 << Bones.NUMBER_OF_BONES) - 1) & ~this.myBones & ~Bones.toMask(Arrays.asList(initialLayout));
+
+        // The opponent takes a bone from the boneyard sizeOfOpponentHand times.
+        sizeOfOpponentHand = myBones.size();
+        sizeOfBoneyard = Integer.bitCount(unknownBones) - sizeOfOpponentHand;
+        largestNumberOfChances = sizeOfOpponentHand;
+        chanceMasks = new int[largestNumberOfChances + 1];
+        chanceMasks[largestNumberOfChances] = unknownBones;
+        isPickup = false;
+
+        chanceProbs = calculateProbabilities();
+        zobristHash = calculateZobristHash();
+    }
+
+    private BoneStateBitboard(int myBones, int[] chanceMasks, int largestNumberOfChances, int sizeOfOpponentHand,
+                              int sizeOfBoneyard, boolean isPickup, int layoutLeft, int layoutRight) {
+        this.myBones = myBones;
+        this.chanceMasks = chanceMasks;
+        this.largestNumberOfChances = largestNumberOfChances;
+        this.sizeOfOpponentHand = sizeOfOpponentHand;
+        this.sizeOfBoneyard = sizeOfBoneyard;
+        this.isPickup = isPickup;
+        this.layoutLeft = layoutLeft;
+        this.layoutRight = layoutRight;
+
+        chanceProbs = calculateProbabilities();
+        zobristHash = calculateZobristHash();
+    }
+
+    /**
+     * Gets the probability that the opponent has a bone in each chance bucket, which depends only on
+     * the number of bones in each bucket.
+     *
+     * @return the probability that the opponent has a bone, indexed by the bone's chance bucket.
+     */
+    private float[] calculateProbabilities() {
+        int[] bonesWithChances = new int[largestNumberOfChances + 1];
+        for (int i = 0; i <= largestNumberOfChances; ++i)
+            bonesWithChances[i] = Integer.bitCount(getChanceMask(i));
+
+        return OpponentProbabilityCache.getProbabilities(bonesWithChances);
+    }
+
+    private long calculateZobristHash() {
+        long hash = Zobrist.layoutLeft(layoutLeft) ^ Zobrist.layoutRight(layoutRight)
+                ^ Zobrist.boneyardSize(sizeOfBoneyard) ^ Zobrist.opponentHandSize(sizeOfOpponentHand);
+
+        if (isPickup)
+            hash ^= Zobrist.opponentPickingUp();
+
+        for (int bones = myBones; bones != 0; bones &= bones - 1)
+            hash ^= Zobrist.myBone(Integer.numberOfTrailingZeros(bones));
+
+        for (int chances = 0; chances < chanceMasks.length; ++chances)
+            for (int bones = chanceMasks[chances]; bones != 0; bones &= bones - 1)
+                hash ^= Zobrist.unknownBone(Integer.numberOfTrailingZeros(bones), chances);
+
+        return hash;
+    }
+
+    private int getChanceMask(int chances) {
+        return chances < chanceMasks.length ? chanceMasks[chances] : 0;
+    }
+
+    @Override
+    public int getMyBonesMask() {
+        return myBones;
+    }
+
+    @Override
+    public int getUnknownBonesMask() {
+        int unknownBones = 0;
+        for (int chanceMask : chanceMasks)
+            unknownBones |= chanceMask;
+        return unknownBones;
+    }
+
+    @Override
+    public BoneState createNext(Choice choiceTaken, boolean isMyTurn) {
+        Choice.Action action = choiceTaken.getAction();
+        ImmutableBone bone = choiceTaken.getBone();
+        int boneMask = bone == null ? 0 : 1 << Bones.indexOf(bone);
+
+        int newLayoutLeft = layoutLeft;
+        int newLayoutRight = layoutRight;
+
+        // Update layout end values
+        if (action.isPlacement()) {
+            boolean onRight = action == Choice.Action.PLACED_RIGHT;
+
+            if (isLayoutEmpty()) {
+                newLayoutLeft = bone.left();
+                newLayoutRight = bone.right();
+            } else {
+                int oldValue = onRight ? layoutRight : layoutLeft;
+                int newValue = (bone.left() == oldValue) ? bone.right() : bone.left();
+                if (onRight)
+                    newLayoutRight = newValue;
+                else
+                    newLayoutLeft = newValue;
+            }
+        }
+
+        if (isMyTurn) {
+            if (action == Choice.Action.PICKED_UP)
+                return new BoneStateBitboard(myBones | boneMask, removeBone(boneMask), largestNumberOfChances,
+                        sizeOfOpponentHand, sizeOfBoneyard - 1, true, newLayoutLeft, newLayoutRight);
+            else
+                // My placements and passes don't change what I know about the unknown bones.
+                return new BoneStateBitboard(myBones & ~boneMask, chanceMasks, largestNumberOfChances,
+                        sizeOfOpponentHand, sizeOfBoneyard, isPickup, newLayoutLeft, newLayoutRight);
+        }
+
+        int[] newChanceMasks;
+        int newLargestNumberOfChances;
+        int newSizeOfOpponentHand = sizeOfOpponentHand;
+        int newSizeOfBoneyard = sizeOfBoneyard;
+        int layoutMask = Bones.getMatchingMask(layoutLeft) | Bones.getMatchingMask(layoutRight);
+
+        if (action.isPlacement()) {
+            // If the opponent has just picked up, we know that they picked up 'bone', so undo that pickup.
+            if (isPickup) {
+                newChanceMasks = shiftChancesNotDefinitelyInBoneyard(chanceMasks, -1);
+                newLargestNumberOfChances = largestNumberOfChances == 0 ? 0 : largestNumberOfChances - 1;
+            } else {
+                newChanceMasks = chanceMasks.clone();
+                newLargestNumberOfChances = largestNumberOfChances;
+            }
+
+            for (int i = 0; i < newChanceMasks.length; ++i)
+                newChanceMasks[i] &= ~boneMask;
+            newSizeOfOpponentHand -= 1;
+
+        } else if (action == Choice.Action.PICKED_UP) {
+            newSizeOfBoneyard -= 1;
+            newSizeOfOpponentHand += 1;
+
+            if (!isPickup) {
+                // The opponent can't have any bones matching the layout, but every other unknown bone
+                // gets another chance to be picked up.
+                int[] masks = moveBonesToBoneyard(chanceMasks, layoutMask);
+                newChanceMasks = new int[masks.length + 1];
+                for (int i = 0; i < masks.length; ++i) {
+                    newChanceMasks[i] |= masks[i] & layoutMask;
+                    newChanceMasks[i + 1] |= masks[i] & ~layoutMask;
+                }
+                newLargestNumberOfChances = highestNonEmptyBucket(newChanceMasks);
+            } else {
+                newChanceMasks = shiftChancesNotDefinitelyInBoneyard(chanceMasks, +1);
+                newLargestNumberOfChances = largestNumberOfChances == 0 ? 0 : largestNumberOfChances + 1;
+            }
+
+        } else {
+            if (!isPickup)
+                // If opponent passed, they can't have any bones containing layoutLeft or layoutRight
+                newChanceMasks = moveBonesToBoneyard(chanceMasks, layoutMask);
+            else
+                newChanceMasks = chanceMasks;
+            newLargestNumberOfChances = largestNumberOfChances;
+        }
+
+        return new BoneStateBitboard(myBones, newChanceMasks, newLargestNumberOfChances, newSizeOfOpponentHand,
+                newSizeOfBoneyard, action == Choice.Action.PICKED_UP, newLayoutLeft, newLayoutRight);
+    }
+
+    private int[] removeBone(int boneMask) {
+        int[] newChanceMasks = chanceMasks.clone();
+        for (int i = 0; i < newChanceMasks.length; ++i)
+            newChanceMasks[i] &= ~boneMask;
+        return newChanceMasks;
+    }
+
+    private static int[] moveBonesToBoneyard(int[] chanceMasks, int bonesMask) {
+        int[] newChanceMasks = chanceMasks.clone();
+        int movedBones = 0;
+
+        for (int i = 0; i < newChanceMasks.length; ++i) {
+            movedBones |= newChanceMasks[i] & bonesMask;
+            newChanceMasks[i] &= ~bonesMask;
+        }
+
+        newChanceMasks[0] |= movedBones;
+        return newChanceMasks;
+    }
+
+    private static int[] shiftChancesNotDefinitelyInBoneyard(int[] chanceMasks, int shift) {
+        int[] newChanceMasks = new int[Math.max(chanceMasks.length + shift, 1)];
+        newChanceMasks[0] = chanceMasks[0];
+
+        for (int i = 1; i < chanceMasks.length; ++i)
+            newChanceMasks[i + shift] |= chanceMasks[i];
+
+        return newChanceMasks;
+    }
+
+    private static int highestNonEmptyBucket(int[] chanceMasks) {
+        for (int i = chanceMasks.length - 1; i > 0; --i)
+            if (chanceMasks[i] != 0)
+                return i;
+        return 0;
+    }
+
+    @Override
+    public int getSizeOfBoneyard() {
+        return sizeOfBoneyard;
+    }
+
+    @Override
+    public int getSizeOfOpponentHand() {
+        return sizeOfOpponentHand;
+    }
+
+    @Override
+    public List<ImmutableBone> getMyBones() {
+        if (myBoneList == null)
+            myBoneList = Collections.unmodifiableList(Bones.fromMask(myBones));
+        return myBoneList;
+    }
+
+    @Override
+    public List<ImmutableBone> getUnknownBones() {
+        if (unknownBoneList == null)
+            unknownBoneList = Collections.unmodifiableList(Bones.fromMask(getUnknownBonesMask()));
+        return unknownBoneList;
+    }
+
+    @Override
+    public double getProbThatOpponentHasBone(ImmutableBone bone) {
+        int boneMask = 1 << Bones.indexOf(bone);
+
+        for (int chances = 0; chances < chanceMasks.length; ++chances)
+            if ((chanceMasks[chances] & boneMask) != 0)
+                return chanceProbs[chances];
+
+        throw new IllegalArgumentException("Bone isn't unknown: " + bone);
+    }
+
+    @Override
+    public double getProbThatBoneyardHasBone(ImmutableBone bone) {
+        return 1 - getProbThatOpponentHasBone(bone);
+    }
+
+    @Override
+    public double getExpectedOpponentHandWeight() {
+        return getUnknownBoneAggregates().getExpectedOpponentHandWeight();
+    }
+
+    @Override
+    public double getExpectedBoneyardWeight() {
+        return getUnknownBoneAggregates().getExpectedBoneyardWeight();
+    }
+
+    @Override
+    public double getOpponentSuitProbability(int value) {
+        return getUnknownBoneAggregates().getOpponentSuitProbability(value);
+    }
+
+    private UnknownBoneAggregates getUnknownBoneAggregates() {
+        if (unknownBoneAggregates == null)
+            unknownBoneAggregates = new UnknownBoneAggregates(this);
+        return unknownBoneAggregates;
+    }
+
+    @Override
+    public int getLayoutLeft() {
+        return layoutLeft;
+    }
+
+    @Override
+    public int getLayoutRight() {
+        return layoutRight;
+    }
+
+    @Override
+    public boolean isLayoutEmpty() {
+        return layoutLeft == -1;
+    }
+
+    @Override
+    public long getZobristHash() {
+        return zobristHash;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("BoneStateBitboard");
+        sb.append("{layoutLeft=").append(layoutLeft);
+        sb.append(", layoutRight=").append(layoutRight);
+        sb.append(", myBones=").append(getMyBones());
+        sb.append(", sizeOfBoneyard=").append(sizeOfBoneyard);
+        sb.append(", isPickup=").append(isPickup);
+        sb.append(", sizeOfOpponentHand=").append(sizeOfOpponentHand);
+        sb.append(", chanceMasks=").append(Arrays.toString(chanceMasks));
+        sb.append('}');
+        return sb.toString();
+    }
+}
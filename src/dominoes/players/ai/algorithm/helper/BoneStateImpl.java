@@ -7,6 +7,8 @@ public class BoneStateImpl implements BoneState {
     private final int layoutLeft, layoutRight;
     private final List<ImmutableBone> myBones;
     private final UnknownBoneManager unknownBoneManager;
+    private final long zobristHash;
+    private UnknownBoneAggregates unknownBoneAggregates;
 
     public BoneStateImpl(List<ImmutableBone> myBones, ImmutableBone... initialLayout) {
         this.myBones = new ArrayList<ImmutableBone>(myBones);
@@ -22,7 +24,8 @@ public class BoneStateImpl implements BoneState {
         List<ImmutableBone> unknownBones = new LinkedList<ImmutableBone>(Bones.getAllBones());
         unknownBones.removeAll(myBones);
         unknownBones.removeAll(Arrays.asList(initialLayout));
-        unknownBoneManager = new UnknownBoneManagerImpl(unknownBones, myBones.size());
+        unknownBoneManager = new UnknownBoneManagerArray(unknownBones, myBones.size());
+        zobristHash = calculateZobristHash();
     }
 
     public BoneStateImpl(List<ImmutableBone> myBones, UnknownBoneManager unknownBoneManager, int layoutLeft, int layoutRight) {
@@ -30,6 +33,26 @@ public class BoneStateImpl implements BoneState {
         this.unknownBoneManager = unknownBoneManager;
         this.layoutLeft = layoutLeft;
         this.layoutRight = layoutRight;
+        zobristHash = calculateZobristHash();
+    }
+
+    private BoneStateImpl(List<ImmutableBone> myBones, UnknownBoneManager unknownBoneManager,
+                          int layoutLeft, int layoutRight, long zobristHash) {
+        this.myBones = myBones;
+        this.unknownBoneManager = unknownBoneManager;
+        this.layoutLeft = layoutLeft;
+        this.layoutRight = layoutRight;
+        this.zobristHash = zobristHash;
+    }
+
+    private long calculateZobristHash() {
+        long hash = unknownBoneManager.getZobristHash()
+                ^ Zobrist.layoutLeft(layoutLeft) ^ Zobrist.layoutRight(layoutRight);
+
+        for (ImmutableBone bone : myBones)
+            hash ^= Zobrist.myBone(bone);
+
+        return hash;
     }
 
     @Override
@@ -68,7 +91,16 @@ public class BoneStateImpl implements BoneState {
                 newMyBones.add(bone);
         }
 
-        return new BoneStateImpl(newMyBones, nextUnknownBoneManager, newLayoutLeft, newLayoutRight);
+        // Update the hash with only the features that have changed
+        long newZobristHash = zobristHash
+                ^ unknownBoneManager.getZobristHash() ^ nextUnknownBoneManager.getZobristHash()
+                ^ Zobrist.layoutLeft(layoutLeft) ^ Zobrist.layoutLeft(newLayoutLeft)
+                ^ Zobrist.layoutRight(layoutRight) ^ Zobrist.layoutRight(newLayoutRight);
+
+        if (isMyTurn && (action.isPlacement() || action == Choice.Action.PICKED_UP))
+            newZobristHash ^= Zobrist.myBone(bone);
+
+        return new BoneStateImpl(newMyBones, nextUnknownBoneManager, newLayoutLeft, newLayoutRight, newZobristHash);
     }
 
     @Override
@@ -91,9 +123,19 @@ public class BoneStateImpl implements BoneState {
         return unknownBoneManager.getUnknownBones();
     }
 
+    @Override
+    public int getMyBonesMask() {
+        return Bones.toMask(myBones);
+    }
+
+    @Override
+    public int getUnknownBonesMask() {
+        return Bones.toMask(unknownBoneManager.getUnknownBones());
+    }
+
     @Override
     public double getProbThatOpponentHasBone(ImmutableBone bone) {
-        return unknownBoneManager.getOpponentBoneProbs().get(bone);
+        return unknownBoneManager.getOpponentBoneProb(bone);
     }
 
     @Override
@@ -101,6 +143,27 @@ public class BoneStateImpl implements BoneState {
         return 1 - getProbThatOpponentHasBone(bone);
     }
 
+    @Override
+    public double getExpectedOpponentHandWeight() {
+        return getUnknownBoneAggregates().getExpectedOpponentHandWeight();
+    }
+
+    @Override
+    public double getExpectedBoneyardWeight() {
+        return getUnknownBoneAggregates().getExpectedBoneyardWeight();
+    }
+
+    @Override
+    public double getOpponentSuitProbability(int value) {
+        return getUnknownBoneAggregates().getOpponentSuitProbability(value);
+    }
+
+    private UnknownBoneAggregates getUnknownBoneAggregates() {
+        if (unknownBoneAggregates == null)
+            unknownBoneAggregates = new UnknownBoneAggregates(this);
+        return unknownBoneAggregates;
+    }
+
     @Override
     public int getLayoutLeft() {
         return layoutLeft;
@@ -116,6 +179,11 @@ public class BoneStateImpl implements BoneState {
         return layoutLeft == -1;
     }
 
+    @Override
+    public long getZobristHash() {
+        return zobristHash;
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder();
@@ -8,17 +8,108 @@ import java.util.*;
  * Helper class for Bones
  */
 public class Bones {
+    public static final int NUMBER_OF_BONES = 28;
+
     private static final Set<ImmutableBone> allBones;
+    private static final ImmutableBone[] bonesByIndex = new ImmutableBone[NUMBER_OF_BONES];
+    private static final ImmutableBone[][] bonesByValues = new ImmutableBone[7][7];
+    private static final int[] matchingMasks = new int[7];
 
     static {
-        // Enumerate all bones
-        Set<ImmutableBone> tempAllBones = new HashSet<ImmutableBone>();
-        for (int i = 0; i < 7; ++i) {
-            for (int j = 0; j < 7; ++j) {
-                tempAllBones.add(new ImmutableBone(i, j));
+        // Intern both orientations of every bone, the [low,high] one being the bone's canonical instance,
+        // and record which bones match each value
+        for (int high = 0; high < 7; ++high) {
+            for (int low = 0; low <= high; ++low) {
+                ImmutableBone bone = new ImmutableBone(low, high);
+                int index = bone.index();
+                bonesByIndex[index] = bone;
+                bonesByValues[low][high] = bone;
+                bonesByValues[high][low] = (low == high) ? bone : new ImmutableBone(high, low);
+                matchingMasks[low] |= 1 << index;
+                matchingMasks[high] |= 1 << index;
             }
         }
-        allBones = Collections.unmodifiableSet(tempAllBones);
+
+        allBones = Collections.unmodifiableSet(new LinkedHashSet<ImmutableBone>(Arrays.asList(bonesByIndex)));
+    }
+
+    /**
+     * Gets the index (0 to 27) of the given bone, which is the same for [a,b] and [b,a].
+     *
+     * @param bone the bone to get the index of.
+     * @return the index of the bone.
+     */
+    public static int indexOf(ImmutableBone bone) {
+        return bone.index();
+    }
+
+    /**
+     * Gets the bone with the given index (see indexOf).
+     *
+     * @param index the index of the bone.
+     * @return the bone with the given index.
+     */
+    public static ImmutableBone getBone(int index) {
+        return bonesByIndex[index];
+    }
+
+    /**
+     * Gets the interned bone with the given values, in the given orientation (which only matters for the
+     * bones at the ends of a layout).
+     *
+     * @param left the bone's left value.
+     * @param right the bone's right value.
+     * @return the interned bone.
+     */
+    public static ImmutableBone getBone(int left, int right) {
+        return bonesByValues[left][right];
+    }
+
+    /**
+     * Gets the interned equivalent of the given Bone, in the same orientation.
+     *
+     * @param bone the Bone to convert.
+     * @return the interned bone.
+     */
+    public static ImmutableBone getBone(Bone bone) {
+        return bonesByValues[bone.left()][bone.right()];
+    }
+
+    /**
+     * Gets the mask of all bones which match the given value (ie. bit indexOf(bone) is set iff
+     * bone.matches(value)).  There are no bones matching -1 (the value of an empty layout's ends).
+     *
+     * @param value the value to match.
+     * @return the mask of bones matching value.
+     */
+    public static int getMatchingMask(int value) {
+        return value == -1 ? 0 : matchingMasks[value];
+    }
+
+    /**
+     * Converts the given bones to a mask (ie. bit indexOf(bone) is set for each bone).
+     *
+     * @param bones the bones to convert.
+     * @return the mask of the given bones.
+     */
+    public static int toMask(Collection<ImmutableBone> bones) {
+        int mask = 0;
+        for (ImmutableBone bone : bones)
+            mask |= 1 << indexOf(bone);
+        return mask;
+    }
+
+    /**
+     * Converts the given mask to a list of bones, in order of index.
+     *
+     * @param mask the mask to convert.
+     * @return the bones in the mask.
+     */
+    public static List<ImmutableBone> fromMask(int mask) {
+        List<ImmutableBone> list = new ArrayList<ImmutableBone>(Integer.bitCount(mask));
+        for (int remaining = mask; remaining != 0; remaining &= remaining - 1)
+            list.add(bonesByIndex[Integer.numberOfTrailingZeros(remaining)]);
+        return list;
     }
 
     /**
@@ -50,7 +141,7 @@ public class Bones {
     public static List<ImmutableBone> convertToImmutableBoneList(Bone[] array) {
         List<ImmutableBone> list = new ArrayList<ImmutableBone>();
         for (Bone bone : array)
-            list.add(new ImmutableBone(bone));
+            list.add(getBone(bone));
         return list;
     }
 }
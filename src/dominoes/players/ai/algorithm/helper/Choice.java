@@ -26,6 +26,38 @@ public class Choice {
     private final Action action;
     private final ImmutableBone bone;
 
+    // Every valid choice, indexed by action and bone index (or Bones.NUMBER_OF_BONES for no bone).
+    private static final Choice[][] choices = new Choice[Action.values().length][Bones.NUMBER_OF_BONES + 1];
+
+    static {
+        for (Action action : Action.values()) {
+            if (action != Action.PASS)
+                for (int index = 0; index < Bones.NUMBER_OF_BONES; ++index)
+                    choices[action.ordinal()][index] = new Choice(action, Bones.getBone(index));
+
+            if (!action.isPlacement())
+                choices[action.ordinal()][Bones.NUMBER_OF_BONES] = new Choice(action, null);
+        }
+    }
+
+    /**
+     * Gets the shared instance of the given choice, whose bone (if any) is the canonical instance from
+     * Bones.getBone(int).  The same rules apply as for the constructor.
+     *
+     * @param action the action to take.
+     * @param bone the bone to perform the action on.
+     * @return the shared choice.
+     * @throws IllegalArgumentException if the bone given was not valid.
+     */
+    public static Choice valueOf(Action action, ImmutableBone bone) {
+        Choice choice = choices[action.ordinal()][bone == null ? Bones.NUMBER_OF_BONES : bone.index()];
+
+        if (choice == null)
+            throw new IllegalArgumentException("Bone " + bone + " is not valid for " + action);
+
+        return choice;
+    }
+
     /**
      * Creates a new choice based on the given action and bone.
      *
@@ -127,10 +159,7 @@ public class Choice {
 
     @Override
     public int hashCode() {
-        int result = action.hashCode();
-        if (bone != null)
-            result = 31 * result + bone.hashCode();
-        return result;
+        return action.ordinal() * (Bones.NUMBER_OF_BONES + 1) + (bone == null ? Bones.NUMBER_OF_BONES : bone.index());
     }
 
     @Override
@@ -5,10 +5,14 @@ import dominoes.Bone;
 
 /**
  * An immutable bone (like dominoes.Bone, but not flippable).
+ *
+ * There's no need to create ImmutableBones: Bones.getBone returns the interned instance for either
+ * orientation of each bone.
  */
 public class ImmutableBone {
-    private int left, right;
-    private int weight;
+    private final int left, right;
+    private final int weight;
+    private final int index;
 
     public ImmutableBone(Bone bone) {
         this(bone.left(), bone.right());
@@ -18,6 +22,10 @@ public class ImmutableBone {
         this.weight = left + right;
         this.right = right;
         this.left = left;
+
+        int high = Math.max(left, right);
+        int low = Math.min(left, right);
+        this.index = high * (high + 1) / 2 + low;
     }
 
     public int left() {
@@ -32,6 +40,16 @@ public class ImmutableBone {
         return weight;
     }
 
+    /**
+     * Gets the index (0 to 27) of this bone, which is the same for [a,b] and [b,a] and different for
+     * every other bone.
+     *
+     * @return the index of this bone.
+     */
+    public int index() {
+        return index;
+    }
+
     /**
      * Returns false if neither left nor right match the given number, or true
      * if either left or right match the given number.
@@ -49,20 +67,17 @@ public class ImmutableBone {
 
     @Override
     public boolean equals(Object o) {
+        if (this == o) return true;
         if (o == null) return false;
         if (!(o instanceof ImmutableBone)) return false;
 
-        ImmutableBone b = (ImmutableBone) o;
-
-        if (left() == b.left() && right() == b.right()) return true;
-        if (left() == b.right() && right() == b.left()) return true;
-
-        return false;
+        return index == ((ImmutableBone) o).index;
     }
 
     @Override
     public int hashCode() {
-        return weight;
+        // Unique for each bone (unlike the weight, which [0,6], [1,5] and [2,4] share).
+        return index;
     }
 
     @Override
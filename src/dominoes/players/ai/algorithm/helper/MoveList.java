@@ -0,0 +1,181 @@
+package dominoes.players.ai.algorithm.helper;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * A reusable list of moves, each encoded as an int (the action's ordinal times NUMBER_OF_BONES + 1, plus the
+ * bone's index or NUMBER_OF_BONES if there's no bone, which is the same as the Choice's hashCode), so that
+ * moves can be generated and iterated over without allocating anything.
+ *
+ * This is where moves are generated from masks of bones (see addPlacements) for StateEnumeratorPipIndexed,
+ * MCTSController and EndgameSolver.
+ */
+public class MoveList {
+    private static final int NO_BONE = Bones.NUMBER_OF_BONES;
+    private static final Choice.Action[] actions = Choice.Action.values();
+
+    /**
+     * The number of different encoded moves (each is from 0 to NUMBER_OF_MOVES - 1).
+     */
+    public static final int NUMBER_OF_MOVES = actions.length * (NO_BONE + 1);
+
+    // Decoding is looked up rather than divided out, since it's done for every move searched.
+    private static final Choice.Action[] actionsByMove = new Choice.Action[NUMBER_OF_MOVES];
+    private static final byte[] boneIndicesByMove = new byte[NUMBER_OF_MOVES];
+
+    static {
+        for (int move = 0; move < NUMBER_OF_MOVES; ++move) {
+            actionsByMove[move] = actions[move / (NO_BONE + 1)];
+            int boneIndex = move % (NO_BONE + 1);
+            boneIndicesByMove[move] = (byte) (boneIndex == NO_BONE ? -1 : boneIndex);
+        }
+    }
+
+    // A move can be made at most once, so no list is longer than this.
+    private final int[] moves = new int[NUMBER_OF_MOVES];
+    private int size;
+
+    // The moves as Choices, created once since it's a view.
+    private final List<Choice> choices = new AbstractList<Choice>() {
+        @Override
+        public Choice get(int i) {
+            if (i >= size)
+                throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+            return toChoice(moves[i]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    };
+
+    /**
+     * Encodes the given move.
+     *
+     * @param action the action taken.
+     * @param boneIndex the index of the bone acted upon (see Bones.indexOf), or -1 for no bone.
+     * @return the encoded move.
+     */
+    public static int encode(Choice.Action action, int boneIndex) {
+        return action.ordinal() * (NO_BONE + 1) + (boneIndex == -1 ? NO_BONE : boneIndex);
+    }
+
+    /**
+     * Gets the action of the given encoded move.
+     *
+     * @param move the encoded move.
+     * @return the action taken.
+     */
+    public static Choice.Action getAction(int move) {
+        return actionsByMove[move];
+    }
+
+    /**
+     * Gets the index of the bone in the given encoded move.
+     *
+     * @param move the encoded move.
+     * @return the index of the bone acted upon, or -1 for no bone.
+     */
+    public static int getBoneIndex(int move) {
+        return boneIndicesByMove[move];
+    }
+
+    /**
+     * Converts the given encoded move to its (shared) Choice.
+     *
+     * @param move the encoded move.
+     * @return the equivalent Choice.
+     */
+    public static Choice toChoice(int move) {
+        int boneIndex = getBoneIndex(move);
+        return Choice.valueOf(getAction(move), boneIndex == -1 ? null : Bones.getBone(boneIndex));
+    }
+
+    /**
+     * Adds a move to the end of the list.
+     *
+     * @param action the action taken.
+     * @param boneIndex the index of the bone acted upon, or -1 for no bone.
+     */
+    public void add(Choice.Action action, int boneIndex) {
+        moves[size++] = encode(action, boneIndex);
+    }
+
+    /**
+     * Adds a move for each bone in the given mask, in order of index.
+     *
+     * @param action the action taken.
+     * @param bones the mask of bones acted upon.
+     */
+    public void addAll(Choice.Action action, int bones) {
+        for (int remaining = bones; remaining != 0; remaining &= remaining - 1)
+            add(action, Integer.numberOfTrailingZeros(remaining));
+    }
+
+    /**
+     * Adds the placements of the given bones on a layout with the given ends, in order of bone index (and
+     * on the right before the left).  If the layout is empty, each bone is placed on the right.  If the ends
+     * are equal, placing a bone on either end gives the same position (mirrored), so only PLACED_RIGHT is
+     * added.
+     *
+     * @param bones the mask of bones which could be placed.
+     * @param layoutLeft the left end of the layout, or -1 if it's empty.
+     * @param layoutRight the right end of the layout, or -1 if it's empty.
+     */
+    public void addPlacements(int bones, int layoutLeft, int layoutRight) {
+        if (layoutLeft == -1) {
+            addAll(Choice.Action.PLACED_RIGHT, bones);
+            return;
+        }
+
+        int rightMask = Bones.getMatchingMask(layoutRight);
+        int leftMask = layoutLeft == layoutRight ? 0 : Bones.getMatchingMask(layoutLeft);
+
+        for (int placeable = bones & (rightMask | leftMask); placeable != 0; placeable &= placeable - 1) {
+            int boneIndex = Integer.numberOfTrailingZeros(placeable);
+            int boneMask = 1 << boneIndex;
+
+            if ((rightMask & boneMask) != 0)
+                add(Choice.Action.PLACED_RIGHT, boneIndex);
+            if ((leftMask & boneMask) != 0)
+                add(Choice.Action.PLACED_LEFT, boneIndex);
+        }
+    }
+
+    /**
+     * Gets the encoded move at the given position.
+     *
+     * @param i the position in the list.
+     * @return the encoded move.
+     */
+    public int get(int i) {
+        return moves[i];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Empties the list, so it can be reused.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Gets an unmodifiable view of the moves as Choices, in the same order.  It's the same object each time,
+     * and it changes whenever this list does.
+     *
+     * @return the moves as Choices.
+     */
+    public List<Choice> asChoices() {
+        return choices;
+    }
+}
@@ -0,0 +1,158 @@
+package dominoes.players.ai.algorithm.helper;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide cache of the probability that the opponent has a bone, given how many chances they've
+ * had to pick it up.
+ *
+ * The probabilities only depend on how many unknown bones have had each number of chances (not on which
+ * bones they are), so they are cached against that signature.  The same few signatures come up again and
+ * again in a deep search, so almost every lookup is a hit.  When the cache reaches its maximum size it
+ * is cleared and starts again.
+ */
+public class OpponentProbabilityCache {
+    private static final int DEFAULT_MAXIMUM_SIZE = 1 << 16;
+
+    private static final ConcurrentMap<Long, float[]> cache = new ConcurrentHashMap<Long, float[]>();
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static volatile int maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+    /**
+     * Gets the probability that the opponent has a bone with each number of chances.
+     *
+     * NB. the returned array is shared, so must not be modified.
+     *
+     * @param bonesWithChances the number of unknown bones the opponent has had i chances to pick up, for
+     *                         i from 0 to the largest number of chances.
+     * @return the probability the opponent has a bone, indexed by the number of chances they've had to pick it up.
+     */
+    public static float[] getProbabilities(int[] bonesWithChances) {
+        long signature = getSignature(bonesWithChances);
+
+        // If the signature doesn't fit in a long, don't cache it.
+        if (signature == -1)
+            return calculateProbabilities(bonesWithChances);
+
+        float[] probs = cache.get(signature);
+
+        if (probs != null) {
+            hits.incrementAndGet();
+            return probs;
+        }
+
+        misses.incrementAndGet();
+        probs = calculateProbabilities(bonesWithChances);
+
+        if (cache.size() >= maximumSize)
+            cache.clear();
+        cache.put(signature, probs);
+
+        return probs;
+    }
+
+    /**
+     * Encodes the number of bones with each (non-zero) number of chances in unary, from the largest
+     * number of chances down, after a leading 1 bit.  Returns -1 if it doesn't fit in a long.
+     */
+    private static long getSignature(int[] bonesWithChances) {
+        long signature = 1;
+        int bitsUsed = 1;
+
+        for (int i = bonesWithChances.length - 1; i > 0; --i) {
+            bitsUsed += bonesWithChances[i] + 1;
+            if (bitsUsed > 63)
+                return -1;
+
+            signature = (signature << (bonesWithChances[i] + 1)) | ((1L << bonesWithChances[i]) - 1) << 1;
+        }
+
+        return signature;
+    }
+
+    /**
+     * Works out the probabilities for each number of chances, with the same float arithmetic as
+     * UnknownBoneManagerImpl originally used for each bone.
+     *
+     * The largest number of chances is still tracked after the bones that had that many are placed, so
+     * there can be rounds in which no bone still unknown could have been picked up.  Those pickups must have
+     * been of bones since placed, so they are skipped.  The original counted them anyway, which changed the
+     * divisor of every later round (eg. two bones with one chance under an empty bucket for two chances got
+     * a probability of 1 each, rather than 0.5) or made it zero or negative (giving infinite, NaN or negative
+     * probabilities).  When every round has a bone that could have been picked up, the results are identical.
+     */
+    private static float[] calculateProbabilities(int[] bonesWithChances) {
+        int largestNumberOfChances = bonesWithChances.length - 1;
+        float[] probs = new float[largestNumberOfChances + 1];
+        int thenAvailableBonesToPickup = 0;
+
+        for (int i = largestNumberOfChances; i > 0; --i) {
+            thenAvailableBonesToPickup += bonesWithChances[i];
+            if (thenAvailableBonesToPickup == 0)
+                continue;
+
+            for (int j = i; j <= largestNumberOfChances; ++j) {
+                if (bonesWithChances[j] == 0)
+                    continue;
+
+                float probOpponentHasBone = probs[j];
+                float probBoneyardHasBone = 1 - probOpponentHasBone;
+                probs[j] = probOpponentHasBone + probBoneyardHasBone / thenAvailableBonesToPickup;
+            }
+
+            --thenAvailableBonesToPickup;
+        }
+
+        return probs;
+    }
+
+    /**
+     * Gets the number of lookups that were found in the cache.
+     *
+     * @return the number of hits.
+     */
+    public static long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of lookups that had to be calculated.
+     *
+     * @return the number of misses.
+     */
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the number of signatures currently cached.
+     *
+     * @return the size of the cache.
+     */
+    public static int getSize() {
+        return cache.size();
+    }
+
+    /**
+     * Sets the number of signatures the cache can hold before it is cleared.
+     *
+     * @param maximumSize the maximum size of the cache.
+     */
+    public static void setMaximumSize(int maximumSize) {
+        if (maximumSize < 1)
+            throw new IllegalArgumentException("maximumSize must be at least 1");
+        OpponentProbabilityCache.maximumSize = maximumSize;
+    }
+
+    /**
+     * Empties the cache and resets the hit and miss counters.
+     */
+    public static void clear() {
+        cache.clear();
+        hits.set(0);
+        misses.set(0);
+    }
+}
@@ -11,6 +11,8 @@ import java.util.List;
  */
 public class Route {
     private final GameState finalState;
+    private final GameState searchedState;
+    private final GameState transposedState;
 
     private GameState earliestState;
     private Choice earliestChoice;
@@ -28,6 +30,50 @@ public class Route {
         earliestState = finalState;
         earliestChoice = null;
         length = 1;
+        searchedState = null;
+        transposedState = null;
+    }
+
+    /**
+     * Create a copy of the given route (eg. so a cached route can be handed out and extended
+     * without changing the cached copy).
+     *
+     * @param route the route to copy.
+     */
+    public Route(Route route) {
+        this.finalState = route.finalState;
+        this.searchedState = route.searchedState;
+        this.transposedState = route.transposedState;
+        this.earliestState = route.earliestState;
+        this.earliestChoice = route.earliestChoice;
+        this.value = route.value;
+        this.length = route.length;
+    }
+
+    /**
+     * Create a route that starts at transposedState and ends with the given GameState, which
+     * is a descendant of searchedState (a transposition of transposedState, ie. the same position
+     * reached by a different order of choices).
+     *
+     * This lets the best route found from searchedState be reused for transposedState without
+     * searching it again.  Extending this route backward follows transposedState's parents.
+     *
+     * @param finalState the last GameState in the route (a descendant of searchedState).
+     * @param searchedState the state the route to finalState was found from.
+     * @param transposedState the transposition of searchedState which this route starts from.
+     * @param value the value of this route.
+     */
+    public Route(GameState finalState, GameState searchedState, GameState transposedState, double value) {
+        this.finalState = finalState;
+        this.searchedState = searchedState;
+        this.transposedState = transposedState;
+        this.value = value;
+        earliestState = transposedState;
+        earliestChoice = null;
+
+        length = 1;
+        for (GameState state = finalState; state != searchedState; state = state.getParent())
+            length += 1;
     }
 
     /**
@@ -110,6 +156,10 @@ public class Route {
         GameState state = finalState;
 
         do {
+            // If this route was transposed, jump from the searched branch to the transposed one.
+            if (state == searchedState)
+                state = transposedState;
+
             stack.addFirst(state);
 
             if (state == earliestState)
@@ -122,6 +172,16 @@ public class Route {
         return stack;
     }
 
+    /**
+     * Returns true iff this route was reused from a transposition (ie. its final state isn't
+     * a descendant of its earliest state).
+     *
+     * @return true iff this route was reused from a transposition.
+     */
+    public boolean isTransposed() {
+        return transposedState != null;
+    }
+
     public int length() {
         return length;
     }
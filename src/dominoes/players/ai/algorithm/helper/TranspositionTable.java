@@ -0,0 +1,163 @@
+package dominoes.players.ai.algorithm.helper;
+
+import dominoes.players.ai.algorithm.GameState;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size table of the best routes found from positions in the GameState tree, keyed by
+ * GameState.getZobristHash(), so transpositions (the same position reached by a different order
+ * of choices) don't have to be searched again.
+ *
+ * Each entry records the best route's final state, its value relative to the searched state's value,
+ * and the remaining ply it was searched to.  Entries are only valid for the search (ie. the call to
+ * RouteSelector.getBestRoutes) they were stored in, since increasing the ply of final states changes
+ * the tree between searches.  When two positions map to the same slot, the one searched deeper is kept.
+ *
+ * Each entry also records how many states with children its search visited, so each hit can count the
+ * node expansions it saved.
+ */
+public class TranspositionTable {
+    private static final int DEFAULT_SIZE_BITS = 16;
+
+    private final int mask;
+    private final long[] keys;
+    private final int[] searches;
+    private final int[] remainingPlys;
+    private final double[] relativeValues;
+    private final GameState[] searchedStates;
+    private final GameState[] finalStates;
+    private final int[] statesSearched;
+
+    private int currentSearch = 1;
+    private long hits, misses, expansionsSaved;
+
+    /**
+     * Creates a TranspositionTable with 2^16 entries.
+     */
+    public TranspositionTable() {
+        this(DEFAULT_SIZE_BITS);
+    }
+
+    /**
+     * Creates a TranspositionTable with 2^sizeBits entries.
+     *
+     * @param sizeBits log2 of the number of entries.
+     */
+    public TranspositionTable(int sizeBits) {
+        if (sizeBits < 1 || sizeBits > 24)
+            throw new IllegalArgumentException("sizeBits must be between 1 and 24");
+
+        int size = 1 << sizeBits;
+        mask = size - 1;
+        keys = new long[size];
+        searches = new int[size];
+        remainingPlys = new int[size];
+        relativeValues = new double[size];
+        searchedStates = new GameState[size];
+        finalStates = new GameState[size];
+        statesSearched = new int[size];
+    }
+
+    /**
+     * Starts a new search, invalidating every entry stored so far.
+     */
+    public void newSearch() {
+        ++currentSearch;
+    }
+
+    /**
+     * Starts a new search and forgets every state stored so far, so they can be garbage collected
+     * (eg. once a move has been played and the rest of the tree is no longer needed).
+     */
+    public void clear() {
+        newSearch();
+        Arrays.fill(searchedStates, null);
+        Arrays.fill(finalStates, null);
+    }
+
+    /**
+     * Looks up a route for a transposition of the given state, searched at least as deep as
+     * the given state would be.
+     *
+     * @param state the state to find a transposition of.
+     * @return the route from state (not yet extended backward), or null if there isn't one.
+     */
+    public Route get(GameState state) {
+        long key = state.getZobristHash();
+        int slot = (int) key & mask;
+
+        if (searches[slot] != currentSearch || keys[slot] != key || searchedStates[slot] == state
+                || remainingPlys[slot] < state.getRemainingPly()) {
+            ++misses;
+            return null;
+        }
+
+        ++hits;
+        expansionsSaved += statesSearched[slot];
+        return new Route(finalStates[slot], searchedStates[slot], state,
+                state.getValue() + relativeValues[slot]);
+    }
+
+    /**
+     * Stores the best route found from the given state.
+     *
+     * @param state the state that was searched.
+     * @param bestRoute the best route from state (not yet extended backward).
+     * @param statesSearched the number of states with children (including state) the search visited.
+     */
+    public void put(GameState state, Route bestRoute, int statesSearched) {
+        long key = state.getZobristHash();
+        int slot = (int) key & mask;
+        int remainingPly = state.getRemainingPly();
+
+        if (searches[slot] == currentSearch && remainingPlys[slot] > remainingPly)
+            return;
+
+        keys[slot] = key;
+        searches[slot] = currentSearch;
+        remainingPlys[slot] = remainingPly;
+        relativeValues[slot] = bestRoute.getValue() - state.getValue();
+        searchedStates[slot] = state;
+        finalStates[slot] = bestRoute.getFinalState();
+        this.statesSearched[slot] = statesSearched;
+    }
+
+    /**
+     * Gets the number of lookups which found a transposition (ie. subtrees which didn't need searching).
+     *
+     * @return the number of hits.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups which didn't find a transposition.
+     *
+     * @return the number of misses.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of node expansions the hits saved: for each hit, the number of states with children
+     * the transposition's search visited, which searching the state again would have expanded.  This is
+     * an upper bound, since some of them may already have been expanded beneath the state that hit.
+     *
+     * @return the number of node expansions saved.
+     */
+    public long getExpansionsSaved() {
+        return expansionsSaved;
+    }
+
+    /**
+     * Resets the hit, miss and expansions saved counters (eg. at the start of each decision).
+     */
+    public void resetCounters() {
+        hits = 0;
+        misses = 0;
+        expansionsSaved = 0;
+    }
+}
@@ -0,0 +1,43 @@
+package dominoes.players.ai.algorithm.helper;
+
+/**
+ * Sums over a BoneState's unknown bones, weighted by the probability that each is in the opponent's hand
+ * or the boneyard.  They're worked out once per BoneState (when first needed), since every pickup child of
+ * a GameState would otherwise sum over the same unknown bones again.
+ */
+final class UnknownBoneAggregates {
+    private final double expectedOpponentHandWeight;
+    private final double expectedBoneyardWeight;
+    private final double[] opponentSuitProbabilities = new double[7];
+
+    UnknownBoneAggregates(BoneState boneState) {
+        double opponentHandWeight = 0;
+        double boneyardWeight = 0;
+
+        for (ImmutableBone bone : boneState.getUnknownBones()) {
+            double probThatOpponentHasBone = boneState.getProbThatOpponentHasBone(bone);
+
+            opponentHandWeight += bone.weight() * probThatOpponentHasBone;
+            boneyardWeight += bone.weight() * boneState.getProbThatBoneyardHasBone(bone);
+
+            opponentSuitProbabilities[bone.left()] += probThatOpponentHasBone;
+            if (bone.right() != bone.left())
+                opponentSuitProbabilities[bone.right()] += probThatOpponentHasBone;
+        }
+
+        expectedOpponentHandWeight = opponentHandWeight;
+        expectedBoneyardWeight = boneyardWeight;
+    }
+
+    double getExpectedOpponentHandWeight() {
+        return expectedOpponentHandWeight;
+    }
+
+    double getExpectedBoneyardWeight() {
+        return expectedBoneyardWeight;
+    }
+
+    double getOpponentSuitProbability(int value) {
+        return opponentSuitProbabilities[value];
+    }
+}
@@ -13,9 +13,25 @@ public interface UnknownBoneManager {
 
     Map<ImmutableBone, Float> getOpponentBoneProbs();
 
+    /**
+     * Gets the probability that the given unknown bone is in the opponent's hand.
+     *
+     * @param bone the unknown bone.
+     * @return the probability that the opponent has the bone.
+     */
+    float getOpponentBoneProb(ImmutableBone bone);
+
     int getSizeOfOpponentHand();
 
     int getSizeOfBoneyard();
 
     List<ImmutableBone> getUnknownBones();
+
+    /**
+     * Gets the Zobrist hash of the unknown bones' chance buckets, the size of the boneyard and
+     * opponent's hand, and whether the opponent is picking up.
+     *
+     * @return the Zobrist hash of this object's state.
+     */
+    long getZobristHash();
 }
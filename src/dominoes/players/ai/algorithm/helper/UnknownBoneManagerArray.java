@@ -0,0 +1,245 @@
+package dominoes.players.ai.algorithm.helper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of UnknownBoneManager which stores the number of chances the opponent has had to pick
+ * up each bone in a byte array indexed by Bones.indexOf (-1 for bones that aren't unknown), and the
+ * probabilities in a float array, so no collections are copied or boxed in creating the next manager.
+ *
+ * The update rules and the float arithmetic are the same as UnknownBoneManagerImpl's.
+ */
+public class UnknownBoneManagerArray implements UnknownBoneManager {
+    private static final byte KNOWN = -1;
+
+    private final byte[] chances;
+    private final float[] probs;
+    private final int largestNumberOfChances;
+    private final int sizeOfOpponentHand;
+    private final int sizeOfBoneyard;
+    private final boolean isPickup;
+    private final long zobristHash;
+
+    private List<ImmutableBone> unknownBones;
+
+    public UnknownBoneManagerArray(List<ImmutableBone> unknownBones, int sizeOfOpponentHand) {
+        this.sizeOfBoneyard = unknownBones.size() - sizeOfOpponentHand;
+        this.sizeOfOpponentHand = sizeOfOpponentHand;
+        isPickup = false;
+
+        // The opponent takes a bone from the boneyard sizeOfOpponentHand times.
+        chances = new byte[Bones.NUMBER_OF_BONES];
+        Arrays.fill(chances, KNOWN);
+        for (ImmutableBone bone : unknownBones)
+            chances[Bones.indexOf(bone)] = (byte) sizeOfOpponentHand;
+        largestNumberOfChances = sizeOfOpponentHand;
+
+        probs = calculateProbabilities();
+        zobristHash = calculateZobristHash();
+    }
+
+    private UnknownBoneManagerArray(byte[] chances, int largestNumberOfChances,
+                                    int sizeOfOpponentHand, int sizeOfBoneyard, boolean isPickup) {
+        this.chances = chances;
+        this.largestNumberOfChances = largestNumberOfChances;
+        this.sizeOfOpponentHand = sizeOfOpponentHand;
+        this.sizeOfBoneyard = sizeOfBoneyard;
+        this.isPickup = isPickup;
+
+        probs = calculateProbabilities();
+        zobristHash = calculateZobristHash();
+    }
+
+    private float[] calculateProbabilities() {
+        int[] bonesWithChances = new int[largestNumberOfChances + 1];
+        for (byte boneChances : chances)
+            if (boneChances != KNOWN)
+                ++bonesWithChances[boneChances];
+
+        // Bones with the same number of chances have the same probability.
+        float[] chanceProbs = OpponentProbabilityCache.getProbabilities(bonesWithChances);
+
+        float[] newProbs = new float[Bones.NUMBER_OF_BONES];
+        for (int boneIndex = 0; boneIndex < Bones.NUMBER_OF_BONES; ++boneIndex)
+            if (chances[boneIndex] != KNOWN)
+                newProbs[boneIndex] = chanceProbs[chances[boneIndex]];
+
+        return newProbs;
+    }
+
+    private long calculateZobristHash() {
+        long hash = Zobrist.boneyardSize(sizeOfBoneyard) ^ Zobrist.opponentHandSize(sizeOfOpponentHand);
+
+        if (isPickup)
+            hash ^= Zobrist.opponentPickingUp();
+
+        for (int boneIndex = 0; boneIndex < Bones.NUMBER_OF_BONES; ++boneIndex)
+            if (chances[boneIndex] != KNOWN)
+                hash ^= Zobrist.unknownBone(boneIndex, chances[boneIndex]);
+
+        return hash;
+    }
+
+    @Override
+    public UnknownBoneManager createNext(Choice choiceTaken, boolean isMyTurn, int layoutLeft, int layoutRight) {
+        int newSizeOfOpponentHand = sizeOfOpponentHand;
+        int newSizeOfBoneyard = sizeOfBoneyard;
+        int newLargestNumberOfChances = largestNumberOfChances;
+
+        Choice.Action action = choiceTaken.getAction();
+        ImmutableBone bone = choiceTaken.getBone();
+
+        if (isMyTurn && action != Choice.Action.PICKED_UP)
+            return this;
+
+        byte[] newChances = chances.clone();
+
+        if (isMyTurn) {     // If I picked up...
+            newSizeOfBoneyard -= 1;
+            newChances[Bones.indexOf(bone)] = KNOWN;
+
+        } else {            // If not my turn...
+            if (action.isPlacement()) {
+                // If the opponent has just picked up, we know that they picked up 'bone' (ie. the one they
+                // just placed), so undo that pickup.
+                if (isPickup)
+                    newLargestNumberOfChances = incrementBoneChancesNotDefinitelyInBoneyard(newChances,
+                            largestNumberOfChances, -1);
+
+                newChances[Bones.indexOf(bone)] = KNOWN;
+                newSizeOfOpponentHand -= 1;
+
+            } else if (action == Choice.Action.PICKED_UP) {
+                newSizeOfBoneyard -= 1;
+                newSizeOfOpponentHand += 1;
+
+                if (!isPickup) {
+                    // If opponent picked up, they can't have any bones containing layoutLeft or layoutRight,
+                    // but they immediately pick up so must add a chance to every unknown bone that doesn't
+                    // match the layout.
+                    setBonesMatchingLayoutToBoneyard(newChances, layoutLeft, layoutRight);
+                    newLargestNumberOfChances = incrementBoneChancesNotMatchingLayout(newChances,
+                            layoutLeft, layoutRight);
+                } else
+                    // NB. if I've done this before, I now only need to increment bone chances that might be in
+                    // the opponents hand.
+                    newLargestNumberOfChances = incrementBoneChancesNotDefinitelyInBoneyard(newChances,
+                            largestNumberOfChances, +1);
+
+            } else if (action == Choice.Action.PASS) {
+                if (!isPickup)
+                    // If opponent passed, they can't have any bones containing layoutLeft or layoutRight
+                    setBonesMatchingLayoutToBoneyard(newChances, layoutLeft, layoutRight);
+            }
+        }
+
+        return new UnknownBoneManagerArray(newChances, newLargestNumberOfChances, newSizeOfOpponentHand,
+                newSizeOfBoneyard, action == Choice.Action.PICKED_UP);
+    }
+
+    private static boolean matchesLayout(int boneIndex, int layoutLeft, int layoutRight) {
+        ImmutableBone bone = Bones.getBone(boneIndex);
+        return bone.matches(layoutLeft) || bone.matches(layoutRight);
+    }
+
+    /**
+     * Increments the chances of every unknown bone not matching the layout.
+     *
+     * @return the new largest number of chances.
+     */
+    private static int incrementBoneChancesNotMatchingLayout(byte[] chances, int layoutLeft, int layoutRight) {
+        int largestNumberOfChances = 0;
+
+        for (int boneIndex = 0; boneIndex < chances.length; ++boneIndex) {
+            if (chances[boneIndex] == KNOWN)
+                continue;
+
+            if (!matchesLayout(boneIndex, layoutLeft, layoutRight))
+                ++chances[boneIndex];
+
+            largestNumberOfChances = Math.max(largestNumberOfChances, chances[boneIndex]);
+        }
+
+        return largestNumberOfChances;
+    }
+
+    /**
+     * Adds value to the chances of every unknown bone with non-zero chances.
+     *
+     * @return the new largest number of chances.
+     */
+    private static int incrementBoneChancesNotDefinitelyInBoneyard(byte[] chances, int largestNumberOfChances,
+                                                                  int value) {
+        for (int boneIndex = 0; boneIndex < chances.length; ++boneIndex)
+            if (chances[boneIndex] != KNOWN && chances[boneIndex] != 0)
+                chances[boneIndex] += value;
+
+        // NB. the largest number of chances is tracked even when no bones have that many chances left
+        // (eg. because they've since been placed), as in UnknownBoneManagerImpl.
+        return largestNumberOfChances == 0 ? 0 : largestNumberOfChances + value;
+    }
+
+    private static void setBonesMatchingLayoutToBoneyard(byte[] chances, int layoutLeft, int layoutRight) {
+        for (int boneIndex = 0; boneIndex < chances.length; ++boneIndex)
+            if (chances[boneIndex] != KNOWN && matchesLayout(boneIndex, layoutLeft, layoutRight))
+                chances[boneIndex] = 0;
+    }
+
+    @Override
+    public float getOpponentBoneProb(ImmutableBone bone) {
+        return probs[Bones.indexOf(bone)];
+    }
+
+    @Override
+    public Map<ImmutableBone, Float> getOpponentBoneProbs() {
+        Map<ImmutableBone, Float> opponentBoneProbs = new HashMap<ImmutableBone, Float>();
+        for (ImmutableBone bone : getUnknownBones())
+            opponentBoneProbs.put(bone, getOpponentBoneProb(bone));
+        return opponentBoneProbs;
+    }
+
+    @Override
+    public int getSizeOfOpponentHand() {
+        return sizeOfOpponentHand;
+    }
+
+    @Override
+    public int getSizeOfBoneyard() {
+        return sizeOfBoneyard;
+    }
+
+    @Override
+    public List<ImmutableBone> getUnknownBones() {
+        if (unknownBones == null) {
+            List<ImmutableBone> newUnknownBones = new ArrayList<ImmutableBone>(sizeOfBoneyard + sizeOfOpponentHand);
+            for (int boneIndex = 0; boneIndex < Bones.NUMBER_OF_BONES; ++boneIndex)
+                if (chances[boneIndex] != KNOWN)
+                    newUnknownBones.add(Bones.getBone(boneIndex));
+            unknownBones = Collections.unmodifiableList(newUnknownBones);
+        }
+
+        return unknownBones;
+    }
+
+    @Override
+    public long getZobristHash() {
+        return zobristHash;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("UnknownBoneManagerArray");
+        sb.append("{sizeOfBoneyard=").append(sizeOfBoneyard);
+        sb.append(", isPickup=").append(isPickup);
+        sb.append(", sizeOfOpponentHand=").append(sizeOfOpponentHand);
+        sb.append(", chances=").append(Arrays.toString(chances));
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -15,6 +15,7 @@ public class UnknownBoneManagerImpl implements UnknownBoneManager {
     private final int sizeOfOpponentHand;
     private final boolean isPickup;
     private final int sizeOfBoneyard;
+    private final long zobristHash;
 
     public UnknownBoneManagerImpl(List<ImmutableBone> unknownBones, int sizeOfOpponentHand) {
         this.sizeOfBoneyard = unknownBones.size() - sizeOfOpponentHand;
@@ -28,6 +29,7 @@ public class UnknownBoneManagerImpl implements UnknownBoneManager {
         opponentChancesToHaveBone.put(sizeOfOpponentHand, unknownBones);
 
         opponentBoneProbs = calculateProbabilities();
+        zobristHash = calculateZobristHash();
     }
 
     private UnknownBoneManagerImpl(Map<Integer, List<ImmutableBone>> opponentChancesToHaveBone,
@@ -42,47 +44,41 @@ public class UnknownBoneManagerImpl implements UnknownBoneManager {
             unknownBones.addAll(boneList);
 
         opponentBoneProbs = calculateProbabilities();
+        zobristHash = calculateZobristHash();
     }
 
     private Map<ImmutableBone, Float> calculateProbabilities() {
         Map<ImmutableBone, Float> newOpponentBoneProbs = new HashMap<ImmutableBone, Float>();
 
         int largestNumberOfChances = Collections.max(opponentChancesToHaveBone.keySet());
-        int thenAvailableBonesToPickup = 0;
+        int[] bonesWithChances = new int[largestNumberOfChances + 1];
 
-        List<ImmutableBone> possibleBonesToTake = new ArrayList<ImmutableBone>(sizeOfBoneyard + sizeOfOpponentHand);
-        float[] thenBoneProb = new float[sizeOfBoneyard + sizeOfOpponentHand];
+        for (Map.Entry<Integer, List<ImmutableBone>> e : opponentChancesToHaveBone.entrySet())
+            bonesWithChances[e.getKey()] = e.getValue().size();
 
-        for (int i = largestNumberOfChances; i > 0; --i) {
-            List<ImmutableBone> bonesNowAbleToBePickedUp = opponentChancesToHaveBone.get(i);
-            if (bonesNowAbleToBePickedUp != null) {
-                possibleBonesToTake.addAll(bonesNowAbleToBePickedUp);
-                thenAvailableBonesToPickup += bonesNowAbleToBePickedUp.size();
-            }
+        // The probabilities only depend on how many bones have had each number of chances to be picked up.
+        // NB. rounds in which no unknown bone could have been picked up are skipped (see OpponentProbabilityCache).
+        float[] chanceProbs = OpponentProbabilityCache.getProbabilities(bonesWithChances);
 
-            for (int boneId = 0; boneId < possibleBonesToTake.size(); ++boneId) {
-                float probOpponentHasBone = thenBoneProb[boneId];
-                float probBoneyardHasBone = 1 - probOpponentHasBone;
-                float newProbOpponentHasBone = probOpponentHasBone + probBoneyardHasBone / thenAvailableBonesToPickup;
+        // Now persist these probabilities in a map:
+        for (Map.Entry<Integer, List<ImmutableBone>> e : opponentChancesToHaveBone.entrySet())
+            for (ImmutableBone bone : e.getValue())
+                newOpponentBoneProbs.put(bone, chanceProbs[e.getKey()]);
 
-                thenBoneProb[boneId] = newProbOpponentHasBone;
-            }
+        return newOpponentBoneProbs;
+    }
 
-            --thenAvailableBonesToPickup;
-        }
+    private long calculateZobristHash() {
+        long hash = Zobrist.boneyardSize(sizeOfBoneyard) ^ Zobrist.opponentHandSize(sizeOfOpponentHand);
 
-        // Bones that have had zero chances to be picked up will have zero probability of being in opponent's hand.
-        // I've only dealt with those with greater than zero chances so far, but I'll add these now.  They'll relate
-        // to elements in thenBoneProb elements that haven't been set, ie. will be zero.
-        List<ImmutableBone> bonesWithZeroProb = opponentChancesToHaveBone.get(0);
-        if (bonesWithZeroProb != null)
-            possibleBonesToTake.addAll(bonesWithZeroProb);
+        if (isPickup)
+            hash ^= Zobrist.opponentPickingUp();
 
-        // Now persist these probabilities in a map:
-        for (int boneId = 0; boneId < possibleBonesToTake.size(); ++boneId)
-            newOpponentBoneProbs.put(possibleBonesToTake.get(boneId), thenBoneProb[boneId]);
+        for (Map.Entry<Integer, List<ImmutableBone>> e : opponentChancesToHaveBone.entrySet())
+            for (ImmutableBone bone : e.getValue())
+                hash ^= Zobrist.unknownBone(bone, e.getKey());
 
-        return newOpponentBoneProbs;
+        return hash;
     }
 
     @Override
@@ -232,6 +228,11 @@ public class UnknownBoneManagerImpl implements UnknownBoneManager {
         return opponentBoneProbs;
     }
 
+    @Override
+    public float getOpponentBoneProb(ImmutableBone bone) {
+        return opponentBoneProbs.get(bone);
+    }
+
     @Override
     public int getSizeOfOpponentHand() {
         return sizeOfOpponentHand;
@@ -247,6 +248,20 @@ public class UnknownBoneManagerImpl implements UnknownBoneManager {
         return Collections.unmodifiableList(unknownBones);
     }
 
+    @Override
+    public long getZobristHash() {
+        return zobristHash;
+    }
+
+    /**
+     * Gets the unknown bones, keyed by the number of chances the opponent has had to pick them up.
+     *
+     * @return the unknown bones by number of chances (which must not be modified).
+     */
+    Map<Integer, List<ImmutableBone>> getOpponentChancesToHaveBone() {
+        return Collections.unmodifiableMap(opponentChancesToHaveBone);
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder();
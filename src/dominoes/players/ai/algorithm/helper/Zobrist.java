@@ -0,0 +1,161 @@
+package dominoes.players.ai.algorithm.helper;
+
+import java.util.Random;
+
+/**
+ * Random keys for Zobrist hashing of positions in the GameState tree.
+ *
+ * A position's hash is the XOR of the keys for each of its features, so a child's hash can be
+ * found from its parent's by XOR-ing out the keys of the features that changed and XOR-ing in
+ * the new ones.  The keys are generated from a fixed seed so hashes are the same from run to run.
+ */
+public class Zobrist {
+    private static final int NUMBER_OF_LAYOUT_VALUES = 8;     // -1 (empty layout) to 6
+    private static final int MAX_CHANCES = Bones.NUMBER_OF_BONES;
+
+    private static final long[] myBoneKeys = new long[Bones.NUMBER_OF_BONES];
+    private static final long[] layoutLeftKeys = new long[NUMBER_OF_LAYOUT_VALUES];
+    private static final long[] layoutRightKeys = new long[NUMBER_OF_LAYOUT_VALUES];
+    private static final long[][] unknownBoneChanceKeys = new long[Bones.NUMBER_OF_BONES][MAX_CHANCES + 1];
+    private static final long[] boneyardSizeKeys = new long[Bones.NUMBER_OF_BONES + 1];
+    private static final long[] opponentHandSizeKeys = new long[Bones.NUMBER_OF_BONES + 1];
+    private static final long opponentPickingUpKey;
+    private static final long myTurnKey;
+    private static final long[] consecutivePassesKeys = new long[3];
+
+    static {
+        Random random = new Random(0x5B0E5L);
+
+        for (int i = 0; i < Bones.NUMBER_OF_BONES; ++i) {
+            myBoneKeys[i] = random.nextLong();
+            for (int chances = 0; chances <= MAX_CHANCES; ++chances)
+                unknownBoneChanceKeys[i][chances] = random.nextLong();
+        }
+
+        for (int i = 0; i < NUMBER_OF_LAYOUT_VALUES; ++i) {
+            layoutLeftKeys[i] = random.nextLong();
+            layoutRightKeys[i] = random.nextLong();
+        }
+
+        for (int i = 0; i <= Bones.NUMBER_OF_BONES; ++i) {
+            boneyardSizeKeys[i] = random.nextLong();
+            opponentHandSizeKeys[i] = random.nextLong();
+        }
+
+        opponentPickingUpKey = random.nextLong();
+        myTurnKey = random.nextLong();
+        for (int i = 0; i < consecutivePassesKeys.length; ++i)
+            consecutivePassesKeys[i] = random.nextLong();
+    }
+
+    /**
+     * Gets the key for the given bone being in my hand.
+     *
+     * @param bone the bone in my hand.
+     * @return the key for the bone being in my hand.
+     */
+    public static long myBone(ImmutableBone bone) {
+        return myBone(Bones.indexOf(bone));
+    }
+
+    /**
+     * Gets the key for the bone with the given index (see Bones.indexOf) being in my hand.
+     *
+     * @param boneIndex the index of the bone in my hand.
+     * @return the key for the bone being in my hand.
+     */
+    public static long myBone(int boneIndex) {
+        return myBoneKeys[boneIndex];
+    }
+
+    /**
+     * Gets the key for the left end of the layout having the given value (-1 if the layout is empty).
+     *
+     * @param layoutLeft the left end of the layout.
+     * @return the key for the left end of the layout.
+     */
+    public static long layoutLeft(int layoutLeft) {
+        return layoutLeftKeys[layoutLeft + 1];
+    }
+
+    /**
+     * Gets the key for the right end of the layout having the given value (-1 if the layout is empty).
+     *
+     * @param layoutRight the right end of the layout.
+     * @return the key for the right end of the layout.
+     */
+    public static long layoutRight(int layoutRight) {
+        return layoutRightKeys[layoutRight + 1];
+    }
+
+    /**
+     * Gets the key for an unknown bone which the opponent has had the given number of chances to pick up.
+     *
+     * @param bone the unknown bone.
+     * @param chances the number of chances the opponent has had to pick up the bone.
+     * @return the key for the unknown bone being in the given chance bucket.
+     */
+    public static long unknownBone(ImmutableBone bone, int chances) {
+        return unknownBone(Bones.indexOf(bone), chances);
+    }
+
+    /**
+     * Gets the key for the unknown bone with the given index (see Bones.indexOf) which the opponent
+     * has had the given number of chances to pick up.
+     *
+     * @param boneIndex the index of the unknown bone.
+     * @param chances the number of chances the opponent has had to pick up the bone.
+     * @return the key for the unknown bone being in the given chance bucket.
+     */
+    public static long unknownBone(int boneIndex, int chances) {
+        return unknownBoneChanceKeys[boneIndex][chances];
+    }
+
+    /**
+     * Gets the key for the boneyard being the given size.
+     *
+     * @param sizeOfBoneyard the size of the boneyard.
+     * @return the key for the boneyard being the given size.
+     */
+    public static long boneyardSize(int sizeOfBoneyard) {
+        return boneyardSizeKeys[sizeOfBoneyard];
+    }
+
+    /**
+     * Gets the key for the opponent's hand being the given size.
+     *
+     * @param sizeOfOpponentHand the size of the opponent's hand.
+     * @return the key for the opponent's hand being the given size.
+     */
+    public static long opponentHandSize(int sizeOfOpponentHand) {
+        return opponentHandSizeKeys[sizeOfOpponentHand];
+    }
+
+    /**
+     * Gets the key for the opponent being part-way through picking up from the boneyard.
+     *
+     * @return the key for the opponent picking up.
+     */
+    public static long opponentPickingUp() {
+        return opponentPickingUpKey;
+    }
+
+    /**
+     * Gets the key for it being my turn.
+     *
+     * @return the key for it being my turn.
+     */
+    public static long myTurn() {
+        return myTurnKey;
+    }
+
+    /**
+     * Gets the key for the given number of passes (0, 1 or 2) having just been made in a row.
+     *
+     * @param consecutivePasses the number of passes just made in a row.
+     * @return the key for the number of consecutive passes.
+     */
+    public static long consecutivePasses(int consecutivePasses) {
+        return consecutivePassesKeys[consecutivePasses];
+    }
+}
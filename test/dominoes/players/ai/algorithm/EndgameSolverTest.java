@@ -0,0 +1,137 @@
+package dominoes.players.ai.algorithm;
+
+import dominoes.players.ai.algorithm.helper.BoneState;
+import dominoes.players.ai.algorithm.helper.BoneStateBitboard;
+import dominoes.players.ai.algorithm.helper.Choice;
+import dominoes.players.ai.algorithm.helper.ImmutableBone;
+import dominoes.players.ai.algorithm.helper.RandomGame;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks EndgameSolver against a plain minimax search (with no memoisation or bitmasks) of the endgames
+ * reached in random games.
+ */
+public class EndgameSolverTest {
+    private static final int GAMES = 1000;
+    // The plain search takes too long with more bones left than this.
+    private static final int MAXIMUM_BONES_LEFT = 13;
+
+    @Test
+    public void scoreMatchesFullSearch() {
+        Random random = new Random(5);
+        // A small table, so that it's cleared part way through some solves.
+        EndgameSolver solver = new EndgameSolver(4096);
+        int endgames = 0;
+
+        for (int game = 0; game < GAMES; ++game) {
+            RandomGame randomGame = new RandomGame(random, 200);
+            BoneState state = new BoneStateBitboard(randomGame.getMyBones(), randomGame.getFirstBone());
+
+            Choice choice;
+            while ((choice = randomGame.chooseRandomly(state)) != null) {
+                if (randomGame.isMyTurn() && EndgameSolver.isSolvable(state)
+                        && state.getMyBones().size() + state.getSizeOfOpponentHand() <= MAXIMUM_BONES_LEFT) {
+                    checkEndgame("game " + game + " at " + state, solver, state);
+                    ++endgames;
+                }
+
+                state = state.createNext(choice, randomGame.isMyTurn());
+                randomGame.play(choice);
+            }
+        }
+
+        assertTrue("only " + endgames + " endgames", endgames > 100);
+    }
+
+    private static void checkEndgame(String message, EndgameSolver solver, BoneState state) {
+        List<ImmutableBone> myBones = new ArrayList<ImmutableBone>(state.getMyBones());
+        List<ImmutableBone> opponentBones = new ArrayList<ImmutableBone>(state.getUnknownBones());
+        int left = state.getLayoutLeft();
+        int right = state.getLayoutRight();
+
+        Choice choice = solver.getBestChoice(state);
+        int expected = minimax(myBones, opponentBones, left, right, true, false);
+        assertEquals(message, expected, solver.getLastScore());
+
+        // The best choice must actually reach that score.
+        if (choice.getAction() == Choice.Action.PASS) {
+            assertEquals(message, expected, minimax(myBones, opponentBones, left, right, false, true));
+        } else {
+            ImmutableBone bone = choice.getBone();
+            boolean onRight = choice.getAction() == Choice.Action.PLACED_RIGHT;
+            assertTrue(message + ", " + choice, myBones.contains(bone) && bone.matches(onRight ? right : left));
+            assertEquals(message + ", " + choice, expected,
+                    valueAfterPlacing(myBones, opponentBones, left, right, true, bone, onRight));
+        }
+    }
+
+    /**
+     * Gets the score of the game from here when both players play perfectly.
+     */
+    private static int minimax(List<ImmutableBone> myBones, List<ImmutableBone> opponentBones, int left, int right,
+                               boolean isMyTurn, boolean lastMoveWasPass) {
+        List<ImmutableBone> hand = isMyTurn ? myBones : opponentBones;
+        boolean canPlace = false;
+        int bestValue = isMyTurn ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+
+        for (ImmutableBone bone : new ArrayList<ImmutableBone>(hand)) {
+            for (boolean onRight : new boolean[] {true, false}) {
+                if (!bone.matches(onRight ? right : left))
+                    continue;
+
+                canPlace = true;
+                int value = valueAfterPlacing(myBones, opponentBones, left, right, isMyTurn, bone, onRight);
+                bestValue = isMyTurn ? Math.max(bestValue, value) : Math.min(bestValue, value);
+            }
+        }
+
+        if (canPlace)
+            return bestValue;
+        if (lastMoveWasPass)
+            return getFinalScore(myBones, opponentBones);
+        return minimax(myBones, opponentBones, left, right, !isMyTurn, true);
+    }
+
+    private static int valueAfterPlacing(List<ImmutableBone> myBones, List<ImmutableBone> opponentBones,
+                                         int left, int right, boolean isMyTurn, ImmutableBone bone, boolean onRight) {
+        List<ImmutableBone> hand = isMyTurn ? myBones : opponentBones;
+        int end = onRight ? right : left;
+        int newEnd = bone.left() == end ? bone.right() : bone.left();
+
+        hand.remove(bone);
+        int value = myBones.isEmpty() || opponentBones.isEmpty()
+                ? getFinalScore(myBones, opponentBones)
+                : minimax(myBones, opponentBones, onRight ? left : newEnd, onRight ? newEnd : right, !isMyTurn, false);
+        hand.add(bone);
+
+        return value;
+    }
+
+    /**
+     * The points scored as AutomatedTable counts them: the loser's hand weight, negative if I lose.
+     */
+    private static int getFinalScore(List<ImmutableBone> myBones, List<ImmutableBone> opponentBones) {
+        int myWeight = getWeight(myBones);
+        int opponentWeight = getWeight(opponentBones);
+
+        if (myBones.isEmpty() || (!opponentBones.isEmpty() && myWeight < opponentWeight))
+            return opponentWeight;
+        if (opponentBones.isEmpty() || myWeight > opponentWeight)
+            return -myWeight;
+        return 0;
+    }
+
+    private static int getWeight(List<ImmutableBone> bones) {
+        int weight = 0;
+        for (ImmutableBone bone : bones)
+            weight += bone.weight();
+        return weight;
+    }
+}
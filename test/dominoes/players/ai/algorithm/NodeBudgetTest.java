@@ -0,0 +1,135 @@
+package dominoes.players.ai.algorithm;
+
+import dominoes.players.ai.AutomatedTable;
+import dominoes.players.ai.algorithm.components.ExpectationWeightEvaluator;
+import dominoes.players.ai.algorithm.components.LinearPlyManager;
+import dominoes.players.ai.algorithm.components.RouteSelectorIncremental;
+import dominoes.players.ai.algorithm.components.StateEnumeratorImpl;
+import dominoes.players.ai.algorithm.helper.BoneStateImpl;
+import dominoes.players.ai.algorithm.helper.Bones;
+import dominoes.players.ai.algorithm.helper.ImmutableBone;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Plays games with a ProbabilisticAI whose tree is limited by a NodeBudget.
+ */
+public class NodeBudgetTest {
+    private static final int GAMES = 6;
+    private static final int MAXIMUM_TREE_SIZE = 1000;
+    private static final int THREADS = 4;
+    private static final int VISITS_PER_THREAD = 1000000;
+
+    /**
+     * RouteSelectorIncremental reuses the best routes cached in collapsed states, so they must start from
+     * the state's parent like every other cached route (or the AI makes choices from the wrong state, and
+     * the game fails with "Choice was not valid").
+     */
+    @Test
+    public void cappedGamesWithIncrementalSelector() {
+        long collapses = 0;
+
+        for (int game = 0; game < GAMES; ++game) {
+            CollapseCountingAI ai = new CollapseCountingAI();
+            ai.setMaximumTreeSize(MAXIMUM_TREE_SIZE);
+
+            AutomatedTable table = new AutomatedTable();
+            table.setSeed(game);
+            table.competeAIs(ai, new ShortSightedAIController(), 100);
+
+            collapses += ai.collapses;
+        }
+
+        assertTrue("no subtrees were collapsed", collapses > 0);
+    }
+
+    /**
+     * RouteSelectorForkJoin's workers visit and expand states at the same time, so none of their updates to
+     * the clock or the count of states may be lost.
+     */
+    @Test
+    public void countsVisitsFromSeveralThreads() throws InterruptedException {
+        final NodeBudget nodeBudget = new NodeBudget(MAXIMUM_TREE_SIZE);
+        List<Thread> threads = new ArrayList<Thread>();
+
+        for (int i = 0; i < THREADS; ++i) {
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    for (int visit = 0; visit < VISITS_PER_THREAD; ++visit) {
+                        nodeBudget.tick();
+                        nodeBudget.addStates(1);
+                    }
+                }
+            });
+        }
+
+        for (Thread thread : threads)
+            thread.start();
+        for (Thread thread : threads)
+            thread.join();
+
+        assertEquals(THREADS * VISITS_PER_THREAD + 1, nodeBudget.tick());
+        assertEquals(THREADS * VISITS_PER_THREAD, nodeBudget.getSize());
+    }
+
+    /**
+     * The states discarded when a choice is made mustn't still be counted, or the peak live nodes in
+     * SearchStatistics would be every state created since the game started.
+     */
+    @Test
+    public void sizeOnlyCountsStatesBeneathTheRoot() {
+        Random random = new Random(5);
+        List<ImmutableBone> allBones = new ArrayList<ImmutableBone>(Bones.getAllBones());
+        Collections.shuffle(allBones, random);
+
+        NodeBudget nodeBudget = new NodeBudget(Integer.MAX_VALUE);
+        GameState state = new GameStateImpl(new StateEnumeratorImpl(), new ExpectationWeightEvaluator(), 2,
+                new BoneStateImpl(new ArrayList<ImmutableBone>(allBones.subList(0, 7))), true, null, nodeBudget);
+
+        for (int move = 0; move < 20 && !state.getChildStates().isEmpty(); ++move) {
+            for (GameState childState : state.getChildStates())
+                childState.getChildStates();
+
+            assertEquals("move " + move, countStates((GameStateImpl) state), nodeBudget.getSize());
+
+            List<GameState> childStates = state.getChildStates();
+            state = state.choose(childStates.get(random.nextInt(childStates.size())).getChoiceTaken());
+            assertEquals("move " + move + " chosen", countStates((GameStateImpl) state), nodeBudget.getSize());
+        }
+    }
+
+    private static int countStates(GameStateImpl state) {
+        int states = 1;
+        for (GameState childState : state.getExpandedChildStates())
+            states += countStates((GameStateImpl) childState);
+        return states;
+    }
+
+    /**
+     * A ProbabilisticAI (with the default RouteSelectorIncremental) which counts the collapses in each
+     * hand's tree but the last.
+     */
+    private static class CollapseCountingAI extends ProbabilisticAI {
+        private long collapses;
+
+        private CollapseCountingAI() {
+            super(new LinearPlyManager(), new RouteSelectorIncremental(), new StateEnumeratorImpl(),
+                    new ExpectationWeightEvaluator());
+        }
+
+        @Override
+        public void setInitialState(List<ImmutableBone> myBones, boolean isMyTurn, ImmutableBone... initialLayout) {
+            if (getNodeBudget() != null)
+                collapses += getNodeBudget().getCollapses();
+            super.setInitialState(myBones, isMyTurn, initialLayout);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package dominoes.players.ai.algorithm;
+
+import dominoes.players.ai.algorithm.helper.Bones;
+import dominoes.players.ai.algorithm.helper.ImmutableBone;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks ParallelMCTSController's threads.
+ */
+public class ParallelMCTSControllerTest {
+    private static final int CONTROLLERS = 20;
+    private static final int TREES = 4;
+    private static final int PLAYOUT_BUDGET = 400;
+
+    /**
+     * Controllers share one pool, so creating many doesn't leave many idle threads behind, and a controller
+     * with more trees than the pool has threads still does every playout.
+     */
+    @Test
+    public void controllersShareOnePool() {
+        for (int i = 0; i < CONTROLLERS; ++i) {
+            ParallelMCTSController ai = new ParallelMCTSController(TREES, new Random(i));
+            ai.setPlayoutBudget(PLAYOUT_BUDGET);
+            dealWithAChoice(ai, new Random(i));
+
+            ai.getBestChoice();
+            assertEquals(PLAYOUT_BUDGET, ai.getPlayoutsInLastSearch());
+        }
+
+        int workers = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet())
+            if (thread.getName().equals("ParallelMCTSController worker"))
+                ++workers;
+
+        assertTrue(workers + " worker threads", workers <= Runtime.getRuntime().availableProcessors());
+    }
+
+    @Test
+    public void builderReadsTheNumberOfThreadsFromTheSystemProperty() {
+        String previous = System.getProperty(ParallelMCTSController.THREADS_PROPERTY);
+        System.setProperty(ParallelMCTSController.THREADS_PROPERTY, "3");
+
+        try {
+            ParallelMCTSController ai = (ParallelMCTSController) AIBuilder.createAI("ParallelMCTSAI");
+            assertEquals(3, ai.getThreads());
+        } finally {
+            if (previous == null)
+                System.clearProperty(ParallelMCTSController.THREADS_PROPERTY);
+            else
+                System.setProperty(ParallelMCTSController.THREADS_PROPERTY, previous);
+        }
+    }
+
+    /**
+     * Deals a hand with an empty layout, so any of my bones can be placed and there's a search.
+     */
+    private static void dealWithAChoice(AIController ai, Random random) {
+        List<ImmutableBone> allBones = new ArrayList<ImmutableBone>(Bones.getAllBones());
+        Collections.shuffle(allBones, random);
+        ai.setInitialState(new ArrayList<ImmutableBone>(allBones.subList(0, 7)), true);
+    }
+}
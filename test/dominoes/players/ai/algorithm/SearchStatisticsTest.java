@@ -0,0 +1,76 @@
+package dominoes.players.ai.algorithm;
+
+import dominoes.players.ai.algorithm.helper.Bones;
+import dominoes.players.ai.algorithm.helper.ImmutableBone;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that every AIController's SearchStatistics can be watched over JMX.
+ */
+public class SearchStatisticsTest {
+
+    @Test
+    public void playersWithTheSameNameAreBothRegistered() throws Exception {
+        SearchStatistics first = new SearchStatistics();
+        SearchStatistics second = new SearchStatistics();
+        ObjectName pattern = new ObjectName("dominoes.players.ai:type=SearchStatistics,name=\"Player\",*");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            first.registerMBean("Player");
+            second.registerMBean("Player");
+            assertEquals(2, server.queryNames(pattern, null).size());
+
+            second.unregisterMBean();
+            assertEquals(1, server.queryNames(pattern, null).size());
+        } finally {
+            first.unregisterMBean();
+            second.unregisterMBean();
+        }
+    }
+
+    @Test
+    public void mctsRecordsPlayoutsAndNodes() {
+        MCTSController ai = new MCTSController(new Random(3));
+        ai.setPlayoutBudget(500);
+
+        // With an empty layout, any of my bones can be placed, so there's a search.
+        List<ImmutableBone> allBones = new ArrayList<ImmutableBone>(Bones.getAllBones());
+        Collections.shuffle(allBones, new Random(3));
+        ai.setInitialState(new ArrayList<ImmutableBone>(allBones.subList(0, 7)), true);
+
+        ai.getBestChoice();
+        SearchStatistics statistics = ai.getSearchStatistics();
+
+        assertEquals(1, statistics.getDecisions());
+        assertEquals(500, statistics.getLastIterations());
+        assertTrue(statistics.getLastNodesExpanded() > 0);
+        assertTrue(statistics.getLastMaxDepth() > 0);
+    }
+
+    @Test
+    public void transpositionsAreRecordedPerDecision() {
+        AIController ai = AIBuilder.createAI("TranspositionProbabilisticAI");
+        List<ImmutableBone> allBones = new ArrayList<ImmutableBone>(Bones.getAllBones());
+        Collections.shuffle(allBones, new Random(3));
+        ai.setInitialState(new ArrayList<ImmutableBone>(allBones.subList(0, 7)), true);
+
+        ai.getBestChoice();
+        SearchStatistics statistics = ai.getSearchStatistics();
+
+        assertTrue(statistics.getLastTranspositionHits() > 0);
+        assertTrue(statistics.getLastExpansionsSaved() >= statistics.getLastTranspositionHits());
+        assertEquals(statistics.getLastTranspositionHits(), statistics.getTotalTranspositionHits());
+    }
+}
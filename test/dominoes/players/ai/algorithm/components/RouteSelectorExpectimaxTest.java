@@ -0,0 +1,148 @@
+package dominoes.players.ai.algorithm.components;
+
+import dominoes.players.ai.algorithm.GameState;
+import dominoes.players.ai.algorithm.GameStateImpl;
+import dominoes.players.ai.algorithm.helper.BoneState;
+import dominoes.players.ai.algorithm.helper.Bones;
+import dominoes.players.ai.algorithm.helper.Choice;
+import dominoes.players.ai.algorithm.helper.ImmutableBone;
+import dominoes.players.ai.algorithm.helper.Route;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that RouteSelectorExpectimax's Star1/Star2 pruning doesn't change the best value or the best choice, by
+ * comparing it with an unpruned expectimax over the same trees (with some leaves deepened at random).
+ */
+public class RouteSelectorExpectimaxTest {
+    private static final int GAMES = 60;
+
+    @Test
+    public void bestValueMatchesUnprunedExpectimax() {
+        Random random = new Random(7);
+        ExpectationWeightEvaluator evaluator = new ExpectationWeightEvaluator();
+        RouteSelectorExpectimax selector = new RouteSelectorExpectimax(evaluator);
+        int positionsChecked = 0;
+
+        for (int game = 0; game < GAMES; ++game) {
+            List<ImmutableBone> allBones = new ArrayList<ImmutableBone>(Bones.getAllBones());
+            Collections.shuffle(allBones, random);
+
+            GameState state = new GameStateImpl(new StateEnumeratorImpl(), evaluator, 3 + game % 4,
+                    new ArrayList<ImmutableBone>(allBones.subList(0, 7)), game % 2 == 0);
+
+            for (int move = 0; move < 40; ++move) {
+                List<GameState> childStates = state.getChildStates();
+                if (childStates.isEmpty())
+                    break;
+
+                if (random.nextInt(3) == 0)
+                    childStates.get(random.nextInt(childStates.size())).increasePly(1 + random.nextInt(2));
+
+                if (state.isMyTurn() && hasPlacement(childStates)) {
+                    double expected = Double.NEGATIVE_INFINITY;
+                    for (GameState childState : childStates)
+                        if (childState.getChoiceTaken().getAction() != Choice.Action.PICKED_UP)
+                            expected = Math.max(expected, expectimax(childState));
+
+                    Route bestRoute = selector.getBestRoutes(state).get(0);
+                    double tolerance = 1e-6 * Math.max(1, Math.abs(expected));
+                    assertEquals("game " + game + ", move " + move, expected, bestRoute.getValue(), tolerance);
+
+                    // The first route must be one that's exactly that good, not a bound which ties with it.
+                    GameState bestChildState = getChildState(state, bestRoute.getEarliestChoice());
+                    assertEquals("game " + game + ", move " + move + " choice", expected,
+                            expectimax(bestChildState), tolerance);
+                    ++positionsChecked;
+                }
+
+                state = state.choose(childStates.get(random.nextInt(childStates.size())).getChoiceTaken());
+            }
+        }
+
+        assertTrue(positionsChecked > 100);
+    }
+
+    private static boolean hasPlacement(List<GameState> childStates) {
+        for (GameState childState : childStates)
+            if (childState.getChoiceTaken().getAction() != Choice.Action.PICKED_UP)
+                return true;
+
+        return false;
+    }
+
+    private static GameState getChildState(GameState state, Choice choice) {
+        for (GameState childState : state.getChildStates())
+            if (childState.getChoiceTaken().equals(choice))
+                return childState;
+
+        throw new AssertionError("no child state for " + choice);
+    }
+
+    /**
+     * Gets the expectimax value of the given state, weighting chance nodes as RouteSelectorExpectimax does but
+     * without pruning.
+     */
+    private static double expectimax(GameState state) {
+        List<GameState> childStates = state.getChildStates();
+        if (childStates.isEmpty())
+            return state.getValue();
+
+        boolean isChanceNode = !state.isMyTurn()
+                || childStates.get(0).getChoiceTaken().getAction() == Choice.Action.PICKED_UP;
+
+        if (!isChanceNode) {
+            double best = Double.NEGATIVE_INFINITY;
+            for (GameState childState : childStates)
+                best = Math.max(best, expectimax(childState));
+            return best;
+        }
+
+        BoneState boneState = state.getBoneState();
+        double[] weights = new double[childStates.size()];
+
+        if (state.isMyTurn()) {
+            for (int i = 0; i < weights.length; ++i)
+                weights[i] = boneState.getProbThatBoneyardHasBone(childStates.get(i).getChoiceTaken().getBone());
+        } else {
+            // A placement is split across the ends the bone fits, and the pickup (or pass) is weighted by the
+            // probability the opponent has none of the bones they could place.
+            int[] sides = new int[Bones.NUMBER_OF_BONES];
+            for (GameState childState : childStates)
+                if (childState.getChoiceTaken().getBone() != null)
+                    ++sides[Bones.indexOf(childState.getChoiceTaken().getBone())];
+
+            double probOfNoPlacement = 1;
+            for (int boneIndex = 0; boneIndex < Bones.NUMBER_OF_BONES; ++boneIndex)
+                if (sides[boneIndex] != 0)
+                    probOfNoPlacement *= 1 - boneState.getProbThatOpponentHasBone(Bones.getBone(boneIndex));
+
+            for (int i = 0; i < weights.length; ++i) {
+                ImmutableBone bone = childStates.get(i).getChoiceTaken().getBone();
+                weights[i] = (bone == null) ? probOfNoPlacement
+                        : boneState.getProbThatOpponentHasBone(bone) / sides[Bones.indexOf(bone)];
+            }
+        }
+
+        double totalWeight = 0;
+        for (double weight : weights)
+            totalWeight += weight;
+
+        double value = 0;
+        for (int i = 0; i < weights.length; ++i) {
+            double weight = totalWeight > 0 ? weights[i] / totalWeight : 1.0 / weights.length;
+            if (weight != 0)
+                value += weight * expectimax(childStates.get(i));
+        }
+
+        return value;
+    }
+}
@@ -0,0 +1,86 @@
+package dominoes.players.ai.algorithm.components;
+
+import dominoes.players.ai.algorithm.GameState;
+import dominoes.players.ai.algorithm.GameStateImpl;
+import dominoes.players.ai.algorithm.helper.Choice;
+import dominoes.players.ai.algorithm.helper.RandomGame;
+import dominoes.players.ai.algorithm.helper.Route;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that RouteSelectorForkJoin gives exactly the same routes as the sequential RouteSelectorBinary over the
+ * same trees, over random games (with some leaves, and the best routes' final states, deepened as the search
+ * goes on).
+ */
+public class RouteSelectorForkJoinTest {
+    private static final int GAMES = 40;
+    private static final int THREADS = 4;
+
+    @Test
+    public void bestRoutesMatchSequentialSelector() {
+        Random random = new Random(13);
+        ForkJoinPool pool = new ForkJoinPool(THREADS);
+        RouteSelector expectedSelector = new RouteSelectorBinary();
+        RouteSelector[] actualSelectors = {new RouteSelectorForkJoin(), new RouteSelectorForkJoin(pool, 1)};
+        int positionsChecked = 0;
+
+        try {
+            for (int game = 0; game < GAMES; ++game) {
+                RandomGame randomGame = new RandomGame(random, 60);
+                GameState state = new GameStateImpl(new StateEnumeratorImpl(), new ExpectationWeightEvaluator(),
+                        2 + game % 3, randomGame.getMyBones(), randomGame.isMyTurn(), randomGame.getFirstBone());
+
+                Choice choice;
+                do {
+                    List<GameState> childStates = state.getChildStates();
+                    if (!childStates.isEmpty() && random.nextInt(3) == 0)
+                        childStates.get(random.nextInt(childStates.size())).increasePly(1 + random.nextInt(2));
+
+                    List<Route> expected = expectedSelector.getBestRoutes(state);
+                    for (RouteSelector actualSelector : actualSelectors)
+                        assertSameRoutes("game " + game + " at " + state.getBoneState(), expected,
+                                actualSelector.getBestRoutes(state));
+
+                    if (!expected.isEmpty()) {
+                        expected.get(0).getFinalState().increasePly(1);
+                        ++positionsChecked;
+                    }
+
+                    // The game can also end when both players are blocked.
+                    choice = childStates.isEmpty() ? null : randomGame.chooseRandomly(state.getBoneState());
+                    if (choice != null) {
+                        state = state.choose(choice);
+                        randomGame.play(choice);
+                    }
+                } while (choice != null);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertTrue(positionsChecked > 500);
+    }
+
+    /**
+     * The routes must be in the same order, with the same choices, values and final states.
+     */
+    private static void assertSameRoutes(String message, List<Route> expected, List<Route> actual) {
+        assertEquals(message, expected.size(), actual.size());
+
+        for (int i = 0; i < expected.size(); ++i) {
+            String routeMessage = message + ", route " + i;
+            assertEquals(routeMessage, expected.get(i).getEarliestChoice(), actual.get(i).getEarliestChoice());
+            assertEquals(routeMessage, expected.get(i).getValue(), actual.get(i).getValue(), 0);
+            assertSame(routeMessage, expected.get(i).getFinalState(), actual.get(i).getFinalState());
+        }
+    }
+}
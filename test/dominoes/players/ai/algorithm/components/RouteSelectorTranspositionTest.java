@@ -0,0 +1,65 @@
+package dominoes.players.ai.algorithm.components;
+
+import dominoes.players.ai.algorithm.GameState;
+import dominoes.players.ai.algorithm.GameStateImpl;
+import dominoes.players.ai.algorithm.helper.Choice;
+import dominoes.players.ai.algorithm.helper.RandomGame;
+import dominoes.players.ai.algorithm.helper.TranspositionTable;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that RouteSelectorTransposition's counters only count the decision being made.
+ */
+public class RouteSelectorTranspositionTest {
+    private static final int GAMES = 10;
+
+    /**
+     * After a move is played, the counters must match those of a new selector searching the same tree once.
+     *
+     * Each position is searched once beforehand, since the first search of a tree also looks up states which
+     * only turn out to be game over when they're expanded.
+     */
+    @Test
+    public void countersAreResetWhenTheRootChanges() {
+        Random random = new Random(5);
+        RouteSelectorTransposition selector = new RouteSelectorTransposition();
+        TranspositionTable table = selector.getTranspositionTable();
+        long totalHits = 0;
+
+        for (int game = 0; game < GAMES; ++game) {
+            RandomGame randomGame = new RandomGame(random, 60);
+            GameState state = new GameStateImpl(new StateEnumeratorImpl(), new ExpectationWeightEvaluator(),
+                    4, randomGame.getMyBones(), randomGame.isMyTurn(), randomGame.getFirstBone());
+
+            Choice choice;
+            do {
+                new RouteSelectorTransposition().getBestRoutes(state);
+                selector.getBestRoutes(state);
+
+                RouteSelectorTransposition fresh = new RouteSelectorTransposition();
+                fresh.getBestRoutes(state);
+
+                String message = "game " + game + " at " + state.getBoneState();
+                assertEquals(message, fresh.getTranspositionTable().getHits(), table.getHits());
+                assertEquals(message, fresh.getTranspositionTable().getMisses(), table.getMisses());
+                assertEquals(message, fresh.getTranspositionTable().getExpansionsSaved(), table.getExpansionsSaved());
+                assertTrue(message, table.getExpansionsSaved() >= table.getHits());
+                totalHits += table.getHits();
+
+                choice = state.getChildStates().isEmpty() ? null : randomGame.chooseRandomly(state.getBoneState());
+                if (choice != null) {
+                    state = state.choose(choice);
+                    randomGame.play(choice);
+                }
+            } while (choice != null);
+        }
+
+        assertTrue(totalHits > 0);
+    }
+}
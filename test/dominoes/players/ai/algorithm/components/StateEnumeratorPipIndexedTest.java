@@ -0,0 +1,66 @@
+package dominoes.players.ai.algorithm.components;
+
+import dominoes.players.ai.algorithm.helper.BoneState;
+import dominoes.players.ai.algorithm.helper.BoneStateBitboard;
+import dominoes.players.ai.algorithm.helper.BoneStateImpl;
+import dominoes.players.ai.algorithm.helper.Choice;
+import dominoes.players.ai.algorithm.helper.ImmutableBone;
+import dominoes.players.ai.algorithm.helper.RandomGame;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks StateEnumeratorPipIndexed against StateEnumeratorImpl over random game histories, with both kinds
+ * of BoneState.
+ */
+public class StateEnumeratorPipIndexedTest {
+    private static final int GAMES = 2000;
+
+    private final StateEnumerator expectedEnumerator = new StateEnumeratorImpl();
+    private final StateEnumerator actualEnumerator = new StateEnumeratorPipIndexed();
+
+    @Test
+    public void matchesStateEnumeratorImplOverRandomGames() {
+        Random random = new Random(13);
+
+        for (int game = 0; game < GAMES; ++game) {
+            RandomGame randomGame = new RandomGame(random, 60);
+            // Half the games start with an empty layout.
+            ImmutableBone[] initialLayout = (game % 4 < 2) ? new ImmutableBone[0]
+                    : new ImmutableBone[] {randomGame.getFirstBone()};
+            BoneState state = (game % 2 == 0)
+                    ? new BoneStateImpl(randomGame.getMyBones(), initialLayout)
+                    : new BoneStateBitboard(randomGame.getMyBones(), initialLayout);
+
+            Choice choice;
+            do {
+                String message = "game " + game + " at " + state;
+
+                // Both lists are fetched before either is checked, since each must belong to the caller.
+                List<Choice> myChoices = actualEnumerator.getMyValidChoices(state);
+                List<Choice> opponentChoices = actualEnumerator.getOpponentValidChoices(state);
+                assertSameChoices(message, expectedEnumerator.getMyValidChoices(state), myChoices);
+                assertSameChoices(message, expectedEnumerator.getOpponentValidChoices(state), opponentChoices);
+
+                choice = randomGame.chooseRandomly(state);
+                if (choice != null) {
+                    state = state.createNext(choice, randomGame.isMyTurn());
+                    randomGame.play(choice);
+                }
+            } while (choice != null);
+        }
+    }
+
+    /**
+     * The choices may be in a different order, but there must be the same ones (and none repeated).
+     */
+    private static void assertSameChoices(String message, List<Choice> expected, List<Choice> actual) {
+        assertEquals(message, new HashSet<Choice>(expected), new HashSet<Choice>(actual));
+        assertEquals(message, expected.size(), actual.size());
+    }
+}
@@ -0,0 +1,116 @@
+package dominoes.players.ai.algorithm.helper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The per-bone loop UnknownBoneManagerImpl used to work out the opponent's bone probabilities before
+ * OpponentProbabilityCache, kept as an independent reference for the tests.
+ *
+ * Each round, from the largest number of chances down, makes the bones that have had at least that many
+ * chances able to be picked up, then spreads one pickup over them.  The baseline counted a round even when
+ * no bone could have been picked up in it, which OpponentProbabilityCache now skips.
+ */
+public class BaselineOpponentProbabilities {
+
+    /**
+     * Works out the probability that the opponent has each bone.
+     *
+     * @param opponentChancesToHaveBone the unknown bones, keyed by the number of chances the opponent has had
+     *                                  to pick them up.
+     * @param skipRoundsWithoutBones if false, exactly as the baseline did.  If true, rounds in which no bone
+     *                               could have been picked up are skipped rather than counted.
+     * @return the probability that the opponent has each unknown bone.
+     */
+    public static Map<ImmutableBone, Float> calculate(Map<Integer, List<ImmutableBone>> opponentChancesToHaveBone,
+                                                      boolean skipRoundsWithoutBones) {
+        Map<ImmutableBone, Float> newOpponentBoneProbs = new HashMap<ImmutableBone, Float>();
+
+        int largestNumberOfChances = Collections.max(opponentChancesToHaveBone.keySet());
+        int thenAvailableBonesToPickup = 0;
+
+        List<ImmutableBone> possibleBonesToTake = new ArrayList<ImmutableBone>();
+        float[] thenBoneProb = new float[Bones.NUMBER_OF_BONES];
+
+        for (int i = largestNumberOfChances; i > 0; --i) {
+            List<ImmutableBone> bonesNowAbleToBePickedUp = opponentChancesToHaveBone.get(i);
+            if (bonesNowAbleToBePickedUp != null) {
+                possibleBonesToTake.addAll(bonesNowAbleToBePickedUp);
+                thenAvailableBonesToPickup += bonesNowAbleToBePickedUp.size();
+            }
+
+            if (skipRoundsWithoutBones && thenAvailableBonesToPickup == 0)
+                continue;
+
+            for (int boneId = 0; boneId < possibleBonesToTake.size(); ++boneId) {
+                float probOpponentHasBone = thenBoneProb[boneId];
+                float probBoneyardHasBone = 1 - probOpponentHasBone;
+                float newProbOpponentHasBone = probOpponentHasBone + probBoneyardHasBone / thenAvailableBonesToPickup;
+
+                thenBoneProb[boneId] = newProbOpponentHasBone;
+            }
+
+            --thenAvailableBonesToPickup;
+        }
+
+        List<ImmutableBone> bonesWithZeroProb = opponentChancesToHaveBone.get(0);
+        if (bonesWithZeroProb != null)
+            possibleBonesToTake.addAll(bonesWithZeroProb);
+
+        for (int boneId = 0; boneId < possibleBonesToTake.size(); ++boneId)
+            newOpponentBoneProbs.put(possibleBonesToTake.get(boneId), thenBoneProb[boneId]);
+
+        return newOpponentBoneProbs;
+    }
+
+    /**
+     * Checks whether the baseline was well defined: at least one bone could have been picked up in every round,
+     * so it never divided by zero or a negative number and never counted a round with no bones.  When it is,
+     * skipping rounds makes no difference.
+     *
+     * @param opponentChancesToHaveBone the unknown bones, keyed by the number of chances the opponent has had
+     *                                  to pick them up.
+     * @return true iff every round had a bone that could have been picked up.
+     */
+    public static boolean isWellDefined(Map<Integer, List<ImmutableBone>> opponentChancesToHaveBone) {
+        int largestNumberOfChances = Collections.max(opponentChancesToHaveBone.keySet());
+        int thenAvailableBonesToPickup = 0;
+
+        for (int i = largestNumberOfChances; i > 0; --i) {
+            List<ImmutableBone> bonesNowAbleToBePickedUp = opponentChancesToHaveBone.get(i);
+            if (bonesNowAbleToBePickedUp != null)
+                thenAvailableBonesToPickup += bonesNowAbleToBePickedUp.size();
+
+            if (thenAvailableBonesToPickup <= 0)
+                return false;
+
+            --thenAvailableBonesToPickup;
+        }
+
+        return true;
+    }
+
+    /**
+     * Gives each number of chances its own bones, so a signature of bucket sizes can be checked against the
+     * baseline.
+     *
+     * @param bonesWithChances the number of bones with each number of chances.
+     * @return distinct bones keyed by their number of chances.
+     */
+    public static Map<Integer, List<ImmutableBone>> withBones(int[] bonesWithChances) {
+        Map<Integer, List<ImmutableBone>> opponentChancesToHaveBone = new HashMap<Integer, List<ImmutableBone>>();
+        int boneIndex = 0;
+
+        for (int chances = 0; chances < bonesWithChances.length; ++chances) {
+            List<ImmutableBone> bones = new ArrayList<ImmutableBone>();
+            for (int i = 0; i < bonesWithChances[chances]; ++i)
+                bones.add(Bones.getBone(boneIndex++));
+            opponentChancesToHaveBone.put(chances, bones);
+        }
+
+        return opponentChancesToHaveBone;
+    }
+}
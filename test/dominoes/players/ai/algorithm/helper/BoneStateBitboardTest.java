@@ -0,0 +1,63 @@
+package dominoes.players.ai.algorithm.helper;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks BoneStateBitboard against BoneStateImpl over random game histories.
+ */
+public class BoneStateBitboardTest {
+    private static final int GAMES = 2000;
+
+    @Test
+    public void matchesBoneStateImplOverRandomGames() {
+        Random random = new Random(7);
+
+        for (int game = 0; game < GAMES; ++game) {
+            RandomGame randomGame = new RandomGame(random, 60);
+            BoneState expected = new BoneStateImpl(randomGame.getMyBones(), randomGame.getFirstBone());
+            BoneState actual = new BoneStateBitboard(randomGame.getMyBones(), randomGame.getFirstBone());
+
+            Choice choice;
+            do {
+                assertSameState("game " + game, expected, actual);
+
+                choice = randomGame.chooseRandomly(expected);
+                if (choice != null) {
+                    expected = expected.createNext(choice, randomGame.isMyTurn());
+                    actual = actual.createNext(choice, randomGame.isMyTurn());
+                    randomGame.play(choice);
+                }
+            } while (choice != null);
+        }
+    }
+
+    private static void assertSameState(String message, BoneState expected, BoneState actual) {
+        message += " at " + expected;
+
+        assertEquals(message, expected.getLayoutLeft(), actual.getLayoutLeft());
+        assertEquals(message, expected.getLayoutRight(), actual.getLayoutRight());
+        assertEquals(message, expected.isLayoutEmpty(), actual.isLayoutEmpty());
+        assertEquals(message, expected.getSizeOfOpponentHand(), actual.getSizeOfOpponentHand());
+        assertEquals(message, expected.getSizeOfBoneyard(), actual.getSizeOfBoneyard());
+        assertEquals(message, new HashSet<ImmutableBone>(expected.getMyBones()),
+                new HashSet<ImmutableBone>(actual.getMyBones()));
+        assertEquals(message, new HashSet<ImmutableBone>(expected.getUnknownBones()),
+                new HashSet<ImmutableBone>(actual.getUnknownBones()));
+        assertEquals(message, expected.getMyBonesMask(), actual.getMyBonesMask());
+        assertEquals(message, expected.getUnknownBonesMask(), actual.getUnknownBonesMask());
+        assertEquals(message, expected.getZobristHash(), actual.getZobristHash());
+
+        // The probabilities are computed with the same float arithmetic, so they should be identical.
+        for (ImmutableBone bone : expected.getUnknownBones()) {
+            assertEquals(message + ", bone " + bone, expected.getProbThatOpponentHasBone(bone),
+                    actual.getProbThatOpponentHasBone(bone), 0);
+            assertEquals(message + ", bone " + bone, expected.getProbThatBoneyardHasBone(bone),
+                    actual.getProbThatBoneyardHasBone(bone), 0);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package dominoes.players.ai.algorithm.helper;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks OpponentProbabilityCache's probabilities.
+ */
+public class OpponentProbabilityCacheTest {
+    private static final int LARGEST_NUMBER_OF_CHANCES = 7;
+    private static final int MAX_BONES_PER_BUCKET = 3;
+
+    /**
+     * Every probability is in [0, 1], including when more chances are tracked than bones are left to have
+     * had them (eg. after the bones with the most chances have been placed).
+     */
+    @Test
+    public void probabilitiesAreBetweenZeroAndOne() {
+        int[] bonesWithChances = new int[LARGEST_NUMBER_OF_CHANCES + 1];
+
+        do {
+            float[] probs = OpponentProbabilityCache.getProbabilities(bonesWithChances);
+
+            for (int chances = 0; chances < bonesWithChances.length; ++chances) {
+                if (bonesWithChances[chances] == 0)
+                    continue;
+
+                String message = Arrays.toString(bonesWithChances) + ", " + chances + " chances";
+                assertTrue(message + ": " + probs[chances], probs[chances] >= 0 && probs[chances] <= 1);
+            }
+        } while (nextBucketSizes(bonesWithChances));
+    }
+
+    /**
+     * Wherever the per-bone baseline was well defined, the cached probabilities are exactly what it gave.
+     */
+    @Test
+    public void matchesBaselineWhereItWasWellDefined() {
+        int[] bonesWithChances = new int[LARGEST_NUMBER_OF_CHANCES + 1];
+        int signaturesChecked = 0;
+
+        do {
+            Map<Integer, List<ImmutableBone>> opponentChancesToHaveBone =
+                    BaselineOpponentProbabilities.withBones(bonesWithChances);
+            if (BaselineOpponentProbabilities.isWellDefined(opponentChancesToHaveBone)) {
+                assertSameAs(BaselineOpponentProbabilities.calculate(opponentChancesToHaveBone, false),
+                        opponentChancesToHaveBone, bonesWithChances);
+                ++signaturesChecked;
+            }
+        } while (nextBucketSizes(bonesWithChances));
+
+        assertTrue(signaturesChecked > 1000);
+    }
+
+    /**
+     * Everywhere else, they're what the baseline gives if rounds in which no bone could have been picked up
+     * are skipped.
+     */
+    @Test
+    public void matchesBaselineWithRoundsWithoutBonesSkipped() {
+        int[] bonesWithChances = new int[LARGEST_NUMBER_OF_CHANCES + 1];
+
+        do {
+            Map<Integer, List<ImmutableBone>> opponentChancesToHaveBone =
+                    BaselineOpponentProbabilities.withBones(bonesWithChances);
+            assertSameAs(BaselineOpponentProbabilities.calculate(opponentChancesToHaveBone, true),
+                    opponentChancesToHaveBone, bonesWithChances);
+        } while (nextBucketSizes(bonesWithChances));
+    }
+
+    /**
+     * The baseline counted the round for the (now empty) largest number of chances, which gave each of these
+     * bones a probability of 1.
+     */
+    @Test
+    public void emptyLargestNumberOfChancesIsNotCounted() {
+        assertEquals(0.5f, OpponentProbabilityCache.getProbabilities(new int[] {3, 2, 0})[1], 0);
+        assertEquals(1.0f, BaselineOpponentProbabilities.calculate(
+                BaselineOpponentProbabilities.withBones(new int[] {3, 2, 0}), false).get(Bones.getBone(3)), 0);
+    }
+
+    @Test
+    public void boneWithNoChancesIsInBoneyard() {
+        assertEquals(0, OpponentProbabilityCache.getProbabilities(new int[] {3, 2})[0], 0);
+    }
+
+    @Test
+    public void onlyBoneThatCouldHaveBeenPickedUpIsInOpponentsHand() {
+        assertEquals(1, OpponentProbabilityCache.getProbabilities(new int[] {5, 1})[1], 0);
+    }
+
+    private static void assertSameAs(Map<ImmutableBone, Float> expectedProbs,
+                                     Map<Integer, List<ImmutableBone>> opponentChancesToHaveBone,
+                                     int[] bonesWithChances) {
+        float[] probs = OpponentProbabilityCache.getProbabilities(bonesWithChances);
+
+        for (Map.Entry<Integer, List<ImmutableBone>> e : opponentChancesToHaveBone.entrySet())
+            for (ImmutableBone bone : e.getValue())
+                assertEquals(Arrays.toString(bonesWithChances) + ", " + e.getKey() + " chances",
+                        expectedProbs.get(bone), probs[e.getKey()], 0);
+    }
+
+    /**
+     * Steps through every combination of bucket sizes, like an odometer.
+     *
+     * @return false once every combination has been seen.
+     */
+    private static boolean nextBucketSizes(int[] bonesWithChances) {
+        for (int i = 0; i < bonesWithChances.length; ++i) {
+            if (bonesWithChances[i] < MAX_BONES_PER_BUCKET) {
+                ++bonesWithChances[i];
+                return true;
+            }
+            bonesWithChances[i] = 0;
+        }
+
+        return false;
+    }
+}
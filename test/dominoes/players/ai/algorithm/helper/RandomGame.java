@@ -0,0 +1,90 @@
+package dominoes.players.ai.algorithm.helper;
+
+import dominoes.players.ai.algorithm.components.StateEnumerator;
+import dominoes.players.ai.algorithm.components.StateEnumeratorImpl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A random game history for tests that compare implementations: a seeded deal, then random valid choices
+ * (as StateEnumeratorImpl gives them) from my point of view, until someone runs out of bones or maxMoves
+ * choices have been made.
+ */
+public class RandomGame {
+    private final Random random;
+    private final StateEnumerator enumerator = new StateEnumeratorImpl();
+    private final List<ImmutableBone> myBones;
+    private final List<ImmutableBone> unknownBones;
+    private final ImmutableBone firstBone;
+    private final int maxMoves;
+    private boolean myTurn;
+    private int moves = 0;
+
+    /**
+     * Deals a game: 7 bones to me and the last bone of the shuffle as the layout.
+     *
+     * @param random the source of the deal and of every choice.
+     * @param maxMoves the most choices to make.
+     */
+    public RandomGame(Random random, int maxMoves) {
+        this.random = random;
+        this.maxMoves = maxMoves;
+
+        List<ImmutableBone> allBones = new ArrayList<ImmutableBone>(Bones.getAllBones());
+        Collections.shuffle(allBones, random);
+
+        myBones = new ArrayList<ImmutableBone>(allBones.subList(0, 7));
+        unknownBones = new ArrayList<ImmutableBone>(allBones.subList(7, 27));
+        firstBone = allBones.get(27);
+        myTurn = random.nextBoolean();
+    }
+
+    public List<ImmutableBone> getMyBones() {
+        return myBones;
+    }
+
+    /**
+     * Gets the bones which are neither mine nor the first bone of the layout.
+     *
+     * @return the bones the opponent and the boneyard have between them.
+     */
+    public List<ImmutableBone> getUnknownBones() {
+        return unknownBones;
+    }
+
+    public ImmutableBone getFirstBone() {
+        return firstBone;
+    }
+
+    public boolean isMyTurn() {
+        return myTurn;
+    }
+
+    /**
+     * Chooses a random valid choice from the given state, or null if the game is over.
+     *
+     * @param state the current state of the game.
+     * @return the choice to make next, or null if the game is over.
+     */
+    public Choice chooseRandomly(BoneState state) {
+        if (moves == maxMoves || state.getMyBones().isEmpty() || state.getSizeOfOpponentHand() == 0)
+            return null;
+
+        List<Choice> choices = myTurn ? enumerator.getMyValidChoices(state) : enumerator.getOpponentValidChoices(state);
+        return choices.get(random.nextInt(choices.size()));
+    }
+
+    /**
+     * Records that the given choice was made, passing the turn unless it was a pickup.
+     *
+     * @param choice the choice made.
+     */
+    public void play(Choice choice) {
+        ++moves;
+        if (choice.getAction() != Choice.Action.PICKED_UP)
+            myTurn = !myTurn;
+    }
+}
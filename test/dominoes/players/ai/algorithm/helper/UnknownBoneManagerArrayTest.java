@@ -0,0 +1,87 @@
+package dominoes.players.ai.algorithm.helper;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks UnknownBoneManagerArray against UnknownBoneManagerImpl, and both managers' probabilities against the
+ * per-bone baseline, over random game histories.
+ */
+public class UnknownBoneManagerArrayTest {
+    private static final int GAMES = 2000;
+
+    @Test
+    public void matchesUnknownBoneManagerImplOverRandomGames() {
+        Random random = new Random(11);
+
+        for (int game = 0; game < GAMES; ++game) {
+            RandomGame randomGame = new RandomGame(random, 60);
+            ImmutableBone firstBone = randomGame.getFirstBone();
+
+            UnknownBoneManagerImpl reference =
+                    new UnknownBoneManagerImpl(new LinkedList<ImmutableBone>(randomGame.getUnknownBones()), 7);
+            BoneState expected = new BoneStateImpl(randomGame.getMyBones(), reference,
+                    firstBone.left(), firstBone.right());
+            BoneState actual = new BoneStateImpl(randomGame.getMyBones(),
+                    new UnknownBoneManagerArray(randomGame.getUnknownBones(), 7), firstBone.left(), firstBone.right());
+
+            Choice choice;
+            do {
+                assertSameUnknownBones("game " + game, expected, actual);
+                assertBaselineProbabilities("game " + game, reference, actual);
+
+                choice = randomGame.chooseRandomly(expected);
+                if (choice != null) {
+                    reference = (UnknownBoneManagerImpl) reference.createNext(choice, randomGame.isMyTurn(),
+                            expected.getLayoutLeft(), expected.getLayoutRight());
+                    expected = expected.createNext(choice, randomGame.isMyTurn());
+                    actual = actual.createNext(choice, randomGame.isMyTurn());
+                    randomGame.play(choice);
+                }
+            } while (choice != null);
+        }
+    }
+
+    /**
+     * Both managers get their probabilities from OpponentProbabilityCache, so they're also checked against the
+     * per-bone baseline, using the chances UnknownBoneManagerImpl tracked for each bone.
+     */
+    private static void assertBaselineProbabilities(String message, UnknownBoneManagerImpl reference,
+                                                    BoneState actual) {
+        Map<Integer, List<ImmutableBone>> opponentChancesToHaveBone = reference.getOpponentChancesToHaveBone();
+        boolean wellDefined = BaselineOpponentProbabilities.isWellDefined(opponentChancesToHaveBone);
+        Map<ImmutableBone, Float> expectedProbs =
+                BaselineOpponentProbabilities.calculate(opponentChancesToHaveBone, !wellDefined);
+
+        message += " at " + reference;
+        for (ImmutableBone bone : actual.getUnknownBones())
+            assertEquals(message + ", bone " + bone, expectedProbs.get(bone),
+                    actual.getProbThatOpponentHasBone(bone), 0);
+    }
+
+    private static void assertSameUnknownBones(String message, BoneState expected, BoneState actual) {
+        message += " at " + expected;
+
+        assertEquals(message, new HashSet<ImmutableBone>(expected.getUnknownBones()),
+                new HashSet<ImmutableBone>(actual.getUnknownBones()));
+        assertEquals(message, expected.getUnknownBones().size(), actual.getUnknownBones().size());
+        assertEquals(message, expected.getSizeOfOpponentHand(), actual.getSizeOfOpponentHand());
+        assertEquals(message, expected.getSizeOfBoneyard(), actual.getSizeOfBoneyard());
+        assertEquals(message, expected.getZobristHash(), actual.getZobristHash());
+
+        for (ImmutableBone bone : expected.getUnknownBones()) {
+            // Both compute each probability with the same float arithmetic, so they should be identical.
+            assertEquals(message + ", bone " + bone, expected.getProbThatOpponentHasBone(bone),
+                    actual.getProbThatOpponentHasBone(bone), 0);
+            assertEquals(message + ", bone " + bone, expected.getProbThatBoneyardHasBone(bone),
+                    actual.getProbThatBoneyardHasBone(bone), 0);
+        }
+    }
+}